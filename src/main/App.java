@@ -2,12 +2,14 @@ package main;
 
 import managers.StateManager;
 import panels.GamePanel;
+import shapes.Tetrominoes.PieceSet;
 import utils.Logger;
 import utils.MessageLevel;
 import utils.ResizeUtility;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 
 /**
  * This is the main application class that contains all of the necessary
@@ -19,7 +21,9 @@ public class App extends JFrame {
     public static final Dimension SIZE = new Dimension(375, 600);
     public static final Dimension MIN_SIZE = new Dimension(300, 450);
     public static final String TITLE = "BlockDrop 2.0 by David Kramer";
+    public static final String PIECES_PROPERTY = "blockdrop.pieces";  // name of the piece set to play with
 
+    private static PieceSet pieceSet = PieceSet.STANDARD;  // pieces that every game is played with
     private GamePanel gamePanel;    // main game content container
 
 
@@ -36,6 +40,7 @@ public class App extends JFrame {
         boolean success = false;
 
         if (Logger.init("BlockDrop.log")) {
+            pieceSet = loadPieceSet(System.getProperty(PIECES_PROPERTY));
             if (StateManager.init(this)) {
                 if (ResizeUtility.init(this)) {
                     gamePanel = new GamePanel();
@@ -60,6 +65,33 @@ public class App extends JFrame {
         return success;
     }
 
+    /**
+     * Loads the piece set to play with. If it can't be loaded, the standard
+     * set is played with instead.
+     * @param name - name of one of the sets in res/pieces, or null for the
+     *               standard set
+     * @return the piece set
+     */
+    private static PieceSet loadPieceSet(String name) {
+        if (name == null) {
+            return PieceSet.STANDARD;
+        }
+        try {
+            return PieceSet.loadResource(name);
+        } catch (IOException | IllegalArgumentException e) {
+            Logger.log(MessageLevel.ERROR, "Piece set %s failed to load, using the standard set: %s",
+                       name, e.getMessage());
+            return PieceSet.STANDARD;
+        }
+    }
+
+    /**
+     * @return the piece set that every game is played with
+     */
+    public static PieceSet getPieceSet() {
+        return pieceSet;
+    }
+
     /**
      * Initially when an application is constructed, the gamePanel size
      * is at (0, 0). This method corrects that so that it is correctly
@@ -85,7 +117,12 @@ public class App extends JFrame {
 
     /**
      * Main method of the application that creates a new instance of
-     * the BlockDrop application.
+     * the BlockDrop application. Games are played with the standard
+     * Tetrominoes, unless another set in res/pieces is picked by name,
+     * with res on the classpath:
+     *
+     *   java -cp out:res -Dblockdrop.pieces=pentominoes main.App
+     *
      * @param args
      */
     public static void main(String[] args) {
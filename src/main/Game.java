@@ -0,0 +1,177 @@
+package main;
+
+import shapes.Grid;
+import shapes.Tetrominoes.PieceSet;
+import shapes.Tetrominoes.Tetromino;
+import utils.GameStats;
+import utils.HistoryGenerator;
+import utils.Logger;
+import utils.MessageLevel;
+import utils.PieceGenerator;
+import utils.Spawner;
+
+/**
+ * A single game of BlockDrop. A Game holds everything that belongs to one
+ * game, its grid, the spawner that drives it and its stats, so that any
+ * number of games can exist at once, without sharing any state.
+ */
+public class Game {
+    private final Grid grid;
+    private final PieceSet pieceSet;    // pieces that this game is played with
+    private final PieceGenerator generator; // decides the order that pieces are spawned in
+    private final GameStats stats;
+    private final GameEngine engine;    // rules of this game
+    private final Spawner spawner;      // drives the engine in real time
+    private Runnable gameOverListener;  // notified when this game is lost
+    private boolean isOver;
+
+
+
+    /**
+     * Constructs a new game, with a default sized grid, starting at the first level.
+     */
+    public Game() {
+        this(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT, 0);
+    }
+
+    /**
+     * Constructs a new game, played with the standard Tetrominoes.
+     * @param colCount - number of columns in the grid
+     * @param rowCount - number of rows in the grid
+     * @param startLevel - level to start at, which is an index of Speeds.LEVELS
+     */
+    public Game(int colCount, int rowCount, int startLevel) {
+        this(colCount, rowCount, startLevel, PieceSet.STANDARD);
+    }
+
+    /**
+     * Constructs a new game.
+     * @param colCount - number of columns in the grid
+     * @param rowCount - number of rows in the grid
+     * @param startLevel - level to start at, which is an index of Speeds.LEVELS
+     * @param pieceSet - pieces to play with
+     */
+    public Game(int colCount, int rowCount, int startLevel, PieceSet pieceSet) {
+        this(colCount, rowCount, startLevel, pieceSet,
+             new HistoryGenerator(pieceSet.getCount(), PieceGenerator.newSeed()));
+    }
+
+    /**
+     * Constructs a new game. Passing a generator with a recorded seed,
+     * replays the exact same sequence of pieces.
+     * @param colCount - number of columns in the grid
+     * @param rowCount - number of rows in the grid
+     * @param startLevel - level to start at, which is an index of Speeds.LEVELS
+     * @param pieceSet - pieces to play with
+     * @param generator - generator of the piece order, for the types of pieceSet
+     * @throws - IllegalArgumentException if the grid is too small for the pieces
+     */
+    public Game(int colCount, int rowCount, int startLevel, PieceSet pieceSet, PieceGenerator generator) {
+        if (generator.getCount() != pieceSet.getCount()) {
+            String error = "Piece generator doesn't match the number of pieces in the set!";
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
+        }
+        this.pieceSet = pieceSet;
+        this.generator = generator;
+        grid = new Grid(colCount, rowCount);
+        checkGridSize();
+        stats = new GameStats();
+        engine = new GameEngine(this);
+        engine.setCurSpeed(startLevel);
+        spawner = new Spawner(this);
+    }
+
+    /**
+     * Makes sure that every piece of the set can be played in the grid. The
+     * grid must be at least as wide and tall as the widest and tallest shape
+     * of the set, and every piece must fit where it spawns, or the game
+     * would be over as soon as it spawned.
+     * @throws - IllegalArgumentException if the grid is too small
+     */
+    private void checkGridSize() {
+        int width = pieceSet.getMaxWidth();
+        int height = pieceSet.getMaxHeight();
+        boolean fits = width <= grid.getColCount() && height <= grid.getRowCount();
+        for (int type = 1; fits && type <= pieceSet.getCount(); type++) {
+            fits = grid.canSpawn(pieceSet.getTileMap(type, Tetromino.ORIENTATION_NORTH));
+        }
+        if (!fits) {
+            String error = String.format("Grid (%d x %d) is too small for piece set %s, which needs at least (%d x %d)!",
+                    grid.getColCount(), grid.getRowCount(), pieceSet.getName(), width, height);
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Starts spawning Tetrominoes.
+     */
+    public void start() {
+        Logger.log(MessageLevel.INFO, "Starting game with seed %d", generator.getSeed());
+        spawner.start();
+    }
+
+    /**
+     * Pauses this game.
+     */
+    public void pause() {
+        spawner.pause();
+    }
+
+    /**
+     * Resumes this game, after it has been paused.
+     */
+    public void resume() {
+        spawner.resume();
+    }
+
+    /**
+     * Ends this game, after it has been lost.
+     */
+    public void end() {
+        isOver = true;
+        if (gameOverListener != null) {
+            gameOverListener.run();
+        }
+    }
+
+    /**
+     * Sets what should happen, once this game has been lost.
+     * @param gameOverListener - action to run
+     */
+    public void setGameOverListener(Runnable gameOverListener) {
+        this.gameOverListener = gameOverListener;
+    }
+
+    /**
+     * @return true if this game has been lost
+     */
+    public boolean isOver() {
+        return isOver;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    public PieceSet getPieceSet() {
+        return pieceSet;
+    }
+
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    public GameStats getStats() {
+        return stats;
+    }
+
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    public Spawner getSpawner() {
+        return spawner;
+    }
+}
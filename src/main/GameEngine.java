@@ -0,0 +1,375 @@
+package main;
+
+import shapes.Grid;
+import shapes.Tetrominoes.*;
+import utils.*;
+
+/**
+ * The rules of a single game, gravity, lock delay, spawn wait, line clears
+ * and topping out, as a state machine that only moves forward when it is
+ * stepped. Time is counted in ticks, where one tick is one millisecond, the
+ * same unit as the delays in Speeds. Nothing here depends on Swing, so the
+ * engine can be driven by the game loop while playing, or stepped as fast as
+ * possible by a simulation, and the same inputs, seed and steps always play
+ * out the exact same game.
+ */
+public class GameEngine {
+    public static final int LEVEL_UP_LIMIT = 10;   // clear threshold so we can level up
+    public static final int QUEUE_SIZE = 8;        // upcoming pieces that are generated ahead of time
+
+    private static final int QUEUE_MASK = QUEUE_SIZE - 1;  // QUEUE_SIZE must be a power of 2
+
+    /**
+     * Phase constants, for what the engine is waiting on next.
+     */
+    public static final int PHASE_IDLE          = 0;    // not started yet
+    public static final int PHASE_SPAWN_WAIT    = 1;    // waiting to spawn the next piece
+    public static final int PHASE_FALLING       = 2;    // waiting to move the falling piece down
+    public static final int PHASE_LOCKING       = 3;    // piece has landed, waiting to lock it in
+    public static final int PHASE_OVER          = 4;    // game has been lost
+
+    private final Game game;
+    private final Grid grid;
+    private final GameStats stats;
+    private final PieceSet pieceSet;        // set of pieces to spawn from
+    private final PieceGenerator generator; // decides the type of each spawned piece
+    private Clock clock = Clock.SYSTEM;     // time source for update()
+    private long lastMillis;                // clock time of the last update()
+
+    /**
+     * Ring buffer of the types of the upcoming pieces, where queueHead is
+     * the next piece to spawn. It is always kept full.
+     */
+    private final int[] queue;
+    private int queueHead;
+
+    private int curSpeed = Speeds.LEVELS[0];   // default starting value
+    private int phase = PHASE_IDLE;
+    private int phaseTicks;                 // ticks left until the current phase fires
+    private long time;                      // ticks that have been stepped since the start
+
+
+
+    /**
+     * Constructs a new engine, for the specified game.
+     * @param game - game to run the rules of
+     */
+    public GameEngine(Game game) {
+        this.game = game;
+        grid = game.getGrid();
+        stats = game.getStats();
+        pieceSet = game.getPieceSet();
+        generator = game.getGenerator();
+        queue = new int[QUEUE_SIZE];
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            queue[i] = generator.next();
+        }
+    }
+
+    /**
+     * Starts the game, by spawning the first piece.
+     */
+    public void start() {
+        resync();
+        spawn();
+    }
+
+    /**
+     * Steps the engine forward by however much time has passed on the
+     * clock, since the last update.
+     */
+    public void update() {
+        long now = clock.getMillis();
+        long elapsed = now - lastMillis;
+        lastMillis = now;
+        step((int)Math.min(elapsed, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Forgets about any time that has passed on the clock, such as while
+     * the game was paused, so that the next update() doesn't catch up on it.
+     */
+    public void resync() {
+        lastMillis = clock.getMillis();
+    }
+
+    /**
+     * Steps the engine forward. Every phase that runs out during the step
+     * fires in order, so a single large step plays out exactly the same as
+     * many small ones.
+     * @param ticks - ticks to step forward, in milliseconds
+     */
+    public void step(int ticks) {
+        while (ticks > 0 && phase != PHASE_IDLE && phase != PHASE_OVER) {
+            if (phaseTicks > ticks) {
+                phaseTicks -= ticks;
+                time += ticks;
+                return;
+            }
+            ticks -= phaseTicks;
+            time += phaseTicks;
+            phaseTicks = 0;
+            fire();
+        }
+    }
+
+    /**
+     * Runs the action of the current phase, once it has run out.
+     */
+    private void fire() {
+        switch (phase) {
+            case PHASE_SPAWN_WAIT:
+                spawn();
+                break;
+            case PHASE_FALLING:
+                fall();
+                break;
+            case PHASE_LOCKING:
+                lock();
+                break;
+        }
+    }
+
+    /**
+     * Sets the next phase.
+     * @param phase - one of the phase constants
+     * @param ticks - ticks until the phase fires
+     */
+    private void setPhase(int phase, int ticks) {
+        this.phase = phase;
+        this.phaseTicks = ticks;
+    }
+
+    /**
+     * Spawns the next piece. It moves down right away, on the next step.
+     */
+    private void spawn() {
+        checkLevelUp();
+        grid.setFallingTetromino(createPiece(nextType()));
+        stats.increaseBlockDrop();
+        setPhase(PHASE_FALLING, 0);
+    }
+
+    /**
+     * Moves the falling piece down a row. If it can't move down, it has
+     * landed, and the player gets Speeds.FINAL_MOVE to make any final
+     * adjustments before it is locked in.
+     */
+    private void fall() {
+        if (grid.checkGameOver()) {
+            endGame();
+        } else if (grid.getFallingTetromino().moveDown()) {
+            setPhase(PHASE_FALLING, curSpeed);
+        } else {
+            setPhase(PHASE_LOCKING, Speeds.FINAL_MOVE);
+        }
+    }
+
+    /**
+     * Locks the landed piece into the grid. If the player has moved it off
+     * of whatever it landed on, it starts falling again instead.
+     */
+    private void lock() {
+        if (grid.getFallingTetromino().checkFitDown()) {
+            setPhase(PHASE_FALLING, curSpeed);
+        } else {
+            lockFalling();
+            setPhase(PHASE_SPAWN_WAIT, Speeds.SPAWN_WAIT);
+        }
+    }
+
+    /**
+     * Locks the falling tetromino into the grid, and counts any lines
+     * that it cleared.
+     */
+    private void lockFalling() {
+        int cleared = grid.dropFalling();
+        if (cleared > 0) {
+            stats.increaseLineCount(cleared);
+        }
+    }
+
+    /**
+     * Ends the game, letting the game know that it has been lost, and
+     * clearing out the grid.
+     */
+    private void endGame() {
+        setPhase(PHASE_OVER, 0);
+        Logger.log(MessageLevel.INFO, "Game Over!");
+        game.end();
+        grid.clear();
+    }
+
+    /**
+     * Hard drops the falling tetromino. Its landing position is found in one
+     * step, and it is locked into the grid right away, so the next spawn is
+     * never delayed by how far it fell. The slide down is only drawn.
+     */
+    public void hardDrop() {
+        Tetromino falling = grid.getFallingTetromino();
+        if (falling == null || !isActive()) {
+            return; // already locked, waiting on the next spawn
+        }
+        int rows = falling.drop();
+        if (falling.checkFit(0, 0)) {   // still above the grid, if it had no room to fall
+            grid.slideFalling(rows);
+            lockFalling();
+            setPhase(PHASE_SPAWN_WAIT, Speeds.SPAWN_WAIT);
+        }
+    }
+
+    /**
+     * Moves the falling tetromino left.
+     * @return true if it moved
+     */
+    public boolean moveLeft() {
+        return isActive() && grid.getFallingTetromino().moveLeft();
+    }
+
+    /**
+     * Moves the falling tetromino right.
+     * @return true if it moved
+     */
+    public boolean moveRight() {
+        return isActive() && grid.getFallingTetromino().moveRight();
+    }
+
+    /**
+     * Moves the falling tetromino down, ahead of gravity.
+     * @return true if it moved
+     */
+    public boolean moveDown() {
+        return isActive() && grid.getFallingTetromino().moveDown();
+    }
+
+    /**
+     * Rotates the falling tetromino.
+     * @return true if it rotated
+     */
+    public boolean rotate() {
+        return isActive() && grid.getFallingTetromino().rotate();
+    }
+
+    /**
+     * @return true if there is a falling tetromino that can be controlled
+     */
+    private boolean isActive() {
+        return (phase == PHASE_FALLING || phase == PHASE_LOCKING) && grid.getFallingTetromino() != null;
+    }
+
+    /**
+     * Takes the next type off of the queue, and refills the queue, so that
+     * the generator always runs one queue ahead of the spawns.
+     * @return type of the piece to spawn
+     */
+    private int nextType() {
+        int type = queue[queueHead];
+        queue[queueHead] = generator.next();
+        queueHead = (queueHead + 1) & QUEUE_MASK;
+        return type;
+    }
+
+    /**
+     * Looks ahead at an upcoming piece, without taking it off the queue.
+     * @param n - how far ahead to look, where 0 is the next piece to spawn
+     * @return type of the upcoming piece, from 1 to the count of the piece set
+     * @throws - IllegalArgumentException if n is not within the queue
+     */
+    public int peek(int n) {
+        if (n < 0 || n >= QUEUE_SIZE) {
+            throw new IllegalArgumentException("Can only peek from 0 to " + (QUEUE_SIZE - 1) + ", not " + n);
+        }
+        return queue[(queueHead + n) & QUEUE_MASK];
+    }
+
+    /**
+     * Checks to see if we should go to the next level, based on the number of
+     * line clears.
+     */
+    private void checkLevelUp() {
+        if (stats.getLevelUpCount() >= LEVEL_UP_LIMIT) {
+            stats.increaseLevel();
+            setCurSpeed(stats.getLevelNum());
+        }
+    }
+
+    /**
+     * Creates a new tetromino from a specified int value type. For the
+     * standard set, this is one of the predefined field constants in the
+     * Tetrominoes class, otherwise it is a type of the loaded piece set.
+     * @param type - type of tetromino
+     * @return tetromino from specified numerical type
+     * @throws - IllegalArgumentException
+     */
+    private Tetromino createPiece(int type) {
+        if (pieceSet != PieceSet.STANDARD) {
+            return new Piece(grid, pieceSet, type);
+        }
+        switch (type) {
+            case Tetrominoes.J:
+                return new J(grid);
+            case Tetrominoes.L:
+                return new L(grid);
+            case Tetrominoes.T:
+                return new T(grid);
+            case Tetrominoes.Z:
+                return new Z(grid);
+            case Tetrominoes.S:
+                return new S(grid);
+            case Tetrominoes.LINE:
+                return new Line(grid);
+            case Tetrominoes.SQUARE:
+                return new Square(grid);
+            default:
+                String error = "Invalid numerical value for generating a Tetromino! " +
+                                "You must be in range of the defined constants in the Tetrominoes class";
+                Logger.log(MessageLevel.FATAL_ERROR, error);
+                throw new IllegalArgumentException(error);
+        }
+    }
+
+    /**
+     * Sets the drop speed. *NOTE speedIndex is the index defined in the
+     * Speeds.LEVELS array. This method accesses the actual speed value
+     * via the specified index.
+     * @param speedIndex
+     */
+    public void setCurSpeed(int speedIndex) {
+        if (speedIndex < Speeds.LEVELS.length && speedIndex >= 0) {
+            curSpeed = Speeds.LEVELS[speedIndex];
+            stats.setLevel(speedIndex);
+        } else {
+            throw new IllegalArgumentException("Invalid Speed Index! Must be in range of Speeds.LEVELS array!");
+        }
+    }
+
+    /**
+     * Sets the time source that update() follows.
+     * @param clock - clock to follow
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        resync();
+    }
+
+    /**
+     * @return the current phase, which is one of the phase constants
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return ticks that have been stepped since the start of the game
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return true if the game has been lost
+     */
+    public boolean isOver() {
+        return phase == PHASE_OVER;
+    }
+}
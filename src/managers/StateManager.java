@@ -3,6 +3,7 @@ package managers;
 import main.App;
 import states.IntroState;
 import states.State;
+import utils.DirtyRegion;
 import utils.KeyboardUtil;
 import utils.Logger;
 import utils.MessageLevel;
@@ -19,7 +20,12 @@ import java.util.Stack;
  */
 public class StateManager {
     private static boolean initialized = false;
-    private static int renderSpeed = 30;    // how fast should states be rendered?
+    private static int logicStep = 30;      // milliseconds of game time per update
+    private static int frameRate = 60;      // how many frames should be rendered per second?
+
+    private static final DirtyRegion dirtyRegion = new DirtyRegion();  // what to redraw in the next frame
+    private static final Object wakeLock = new Object();    // idle game loop waits on this
+    private static boolean isWoken;     // has wake() been called since the game loop last waited?
 
     private static Stack<State> states;
     private static App app;
@@ -58,6 +64,16 @@ public class StateManager {
         states.peek().render(g2d);
     }
 
+    /**
+     * Calls the render method on the active state, with how far along it
+     * is between its last update and the next.
+     * @param g2d
+     * @param alpha - from 0 to 1, fraction of a logic step since the last update
+     */
+    public static void render(Graphics2D g2d, float alpha) {
+        states.peek().render(g2d, alpha);
+    }
+
     /**
      * Sets the current state. If the state is an IntroState, all other
      * states are cleared, to save on memory resources.
@@ -73,6 +89,7 @@ public class StateManager {
         }
         state.setSize(size);
         states.push(state);
+        repaintAll();
 
         Logger.log(MessageLevel.INFO, "State pushed %s", state.getClass().getName());
     }
@@ -91,22 +108,97 @@ public class StateManager {
      */
     public static void updateSize(Dimension size) {
         getActiveState().setSize(size);
+        repaintAll();
+    }
+
+    /**
+     * Takes the part of the screen that has changed since the last frame,
+     * which is everything that the active state reports, along with
+     * anything that was marked through repaintAll().
+     * @param width - width of the screen
+     * @param height - height of the screen
+     * @return the part of the screen to redraw, or null if nothing has changed
+     */
+    public static Rectangle takeDirty(int width, int height) {
+        states.peek().collectDirty(dirtyRegion);
+        return dirtyRegion.take(width, height);
+    }
+
+    /**
+     * Makes the next frame redraw the whole screen, such as after a state
+     * transition, a resize, or when the window has been uncovered.
+     */
+    public static void repaintAll() {
+        dirtyRegion.addAll();
+        wake();
+    }
+
+    /**
+     * @return true if the active state changes on its own, from frame to frame
+     */
+    public static boolean isAnimating() {
+        return states.peek().isAnimating();
+    }
+
+    /**
+     * Wakes the game loop, if it is waiting in awaitWake(). This should be
+     * called after anything that changes a state that isn't animating, such
+     * as input or a timer. A wake that comes while the loop is still running
+     * isn't lost, its next wait just returns right away.
+     */
+    public static void wake() {
+        synchronized (wakeLock) {
+            isWoken = true;
+            wakeLock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until wake() is called, or returns right away if it already
+     * has been, since the last wait.
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public static void awaitWake() throws InterruptedException {
+        synchronized (wakeLock) {
+            while (!isWoken) {
+                wakeLock.wait();
+            }
+            isWoken = false;
+        }
+    }
+
+    /**
+     * Sets how much game time passes in each update. Updates always advance
+     * by this fixed step, no matter how fast frames are rendered, so that
+     * gameplay timing never depends on the frame rate.
+     * @param millis - milliseconds per update, at least 1
+     */
+    public static void setLogicStep(int millis) {
+        logicStep = Math.max(millis, 1);
+    }
+
+    /**
+     *
+     * @return milliseconds of game time per update
+     */
+    public static int getLogicStep() {
+        return logicStep;
     }
 
     /**
-     * Sets the render speed that everything should be drawn at.
-     * @param speed
+     * Sets how many frames should be rendered per second.
+     * @param fps - frames per second, at least 1
      */
-    public static void setRenderSpeed(int speed) {
-        renderSpeed = speed;
+    public static void setFrameRate(int fps) {
+        frameRate = Math.max(fps, 1);
     }
 
     /**
      *
-     * @return the current render speed
+     * @return frames rendered per second
      */
-    public static int getRenderSpeed() {
-        return renderSpeed;
+    public static int getFrameRate() {
+        return frameRate;
     }
 
     /**
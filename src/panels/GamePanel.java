@@ -6,17 +6,46 @@ import utils.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.lang.reflect.InvocationTargetException;
 
 /**
  * This class is responsible for containing the StateManager of the game
  * and displaying the current state to the screen. This class contains the
- * main game loop for updating and redrawing to the screen.
+ * main game loop for updating and redrawing to the screen. The loop is a
+ * fixed timestep loop, where states are always updated in steps of the same
+ * amount of game time, however long frames take to render, and frames are
+ * rendered at their own rate, in between.
+ * Frames are actively rendered, straight to a page flipped BufferStrategy,
+ * and shown when the game loop asks for them, so that Swing never coalesces
+ * or delays them. If a BufferStrategy isn't available, frames fall back to
+ * being painted through repaint().
+ * Both updates and frames are run on the EDT, the game loop only decides
+ * when. The states, their displays and their Swing Timers are all changed
+ * on the EDT, so drawing there never sees them half way through a change.
+ * Only the part of the screen that the active state reports as changed is
+ * redrawn, and frames where nothing changed aren't drawn at all. The whole
+ * screen is redrawn after transitions and resizes, or if the back buffer
+ * doesn't keep its contents between frames.
+ * When the active state isn't animating, the loop stops running altogether,
+ * and waits for input, a timer, a state change or a resize to wake it.
  * Created by David Kramer on 2/8/2016.
  */
 public class GamePanel extends JPanel implements Runnable {
+    private static final int MAX_CATCH_UP_STEPS = 5;    // most updates to run for a single frame
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int BUFFER_COUNT = 2;          // front and back buffer, for page flipping
+
     private boolean initialized = false;
     private Thread thread;
-    private boolean isRunning;
+    private volatile boolean isRunning;
+    private volatile float alpha;   // fraction of a logic step, for the frame being rendered
+
+    private boolean isActiveRendering = true;   // should frames be rendered to a BufferStrategy?
+    private Canvas canvas;                      // surface for active rendering
+    private BufferStrategy strategy;            // null when falling back to repaint()
+    private boolean isBufferKept;               // does the back buffer still hold the last frame?
+    private boolean isAnimating;                // was the active state animating, as of the last frame?
 
 
 
@@ -38,10 +67,14 @@ public class GamePanel extends JPanel implements Runnable {
     }
 
     /**
-     * Starts the game loop.
+     * Starts the game loop. This must be called once this panel is showing,
+     * so that a BufferStrategy can be created for it.
      */
     public void start() {
         if (initialized) {
+            if (isActiveRendering) {
+                createStrategy();
+            }
             isRunning = true;
             thread = new Thread(this);
             thread.start();
@@ -51,18 +84,203 @@ public class GamePanel extends JPanel implements Runnable {
     }
 
     /**
-     * Main game loop of the application. Actively renders and updates
-     * the current state in StateManager.
+     * Creates the canvas and page flipped BufferStrategy for active
+     * rendering. If either can't be created, frames are painted through
+     * repaint() instead.
+     */
+    private void createStrategy() {
+        try {
+            canvas = new Canvas() {
+                // the window system only asks for a repaint once the canvas has been uncovered,
+                // and the game loop redraws it, so the next frame just has to be complete
+                public void update(Graphics g) {
+                    StateManager.repaintAll();
+                }
+
+                public void paint(Graphics g) {
+                    StateManager.repaintAll();
+                }
+            };
+            canvas.setFocusable(false);     // keys still go to this panel
+            setLayout(new BorderLayout());
+            add(canvas, BorderLayout.CENTER);
+            validate();
+            canvas.createBufferStrategy(BUFFER_COUNT);
+            strategy = canvas.getBufferStrategy();
+            BufferCapabilities caps = strategy.getCapabilities();
+            isBufferKept = !caps.isPageFlipping() || caps.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+            Logger.log(MessageLevel.INFO, "Active rendering with page flipping: %b",
+                       strategy.getCapabilities().isPageFlipping());
+        } catch (RuntimeException e) {  // not displayable, headless, or no accelerated buffers
+            Logger.log(MessageLevel.WARNING, "No BufferStrategy available, falling back to repaint(): %s", e);
+            if (canvas != null) {
+                remove(canvas);
+            }
+            canvas = null;
+            strategy = null;
+        }
+    }
+
+    /**
+     * Sets whether frames should be actively rendered to a BufferStrategy,
+     * or painted through repaint(). This must be set before start().
+     * @param isActiveRendering - should frames be actively rendered
+     */
+    public void setActiveRendering(boolean isActiveRendering) {
+        this.isActiveRendering = isActiveRendering;
+    }
+
+    /**
+     * Stops the game loop, after its current frame.
+     */
+    public void stop() {
+        isRunning = false;
+        StateManager.wake();
+    }
+
+    /**
+     * Main game loop of the application. Elapsed time is added up in an
+     * accumulator, and the current state in StateManager is updated once for
+     * every whole logic step in it. If updates fall too far behind, at most
+     * MAX_CATCH_UP_STEPS are run, and the rest of the backlog is dropped, so
+     * the game slows down instead of freezing. Whatever is left over, is the
+     * interpolation alpha that the frame is rendered with.
+     * Once the active state stops animating, the loop waits to be woken,
+     * and any time spent waiting is never caught up on.
      */
     public void run() {
+        long prevTime = System.nanoTime();
+        long accumulator = 0;
+
         while (isRunning) {
-            StateManager.update();
-            repaint();
+            long frameStart = System.nanoTime();
+            long stepNanos = StateManager.getLogicStep() * NANOS_PER_MILLI;
+            long frameNanos = 1000000000L / StateManager.getFrameRate();
+            accumulator += frameStart - prevTime;
+            prevTime = frameStart;
+
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS) {
+                accumulator -= stepNanos;
+                steps++;
+            }
+            if (accumulator >= stepNanos) {
+                accumulator %= stepNanos;   // too far behind to catch up
+            }
+            update(steps);
+            alpha = (float)accumulator / stepNanos;
+            render();
+
+            if (!isAnimating) {
+                try {
+                    StateManager.awaitWake();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    isRunning = false;
+                }
+                prevTime = System.nanoTime();
+                accumulator = 0;
+                continue;
+            }
+
+            // sleep off whatever is left of this frame
+            long sleepNanos = frameNanos - (System.nanoTime() - frameStart);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / NANOS_PER_MILLI, (int)(sleepNanos % NANOS_PER_MILLI));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    isRunning = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the updates of a frame on the EDT, where input and the Swing
+     * Timers of the states also run, so that the state never changes from
+     * two threads at once.
+     * @param steps - number of logic steps to update
+     */
+    private void update(int steps) {
+        if (steps == 0) {
+            return;
+        }
+        invokeAndWait(() -> {
+            for (int i = 0; i < steps; i++) {
+                StateManager.update();
+            }
+        }, "State update");
+    }
+
+    /**
+     * Renders a frame on the EDT, for the same reason that updates are run
+     * there.
+     */
+    private void render() {
+        invokeAndWait(this::renderFrame, "Render");
+    }
+
+    /**
+     * Runs an action on the EDT, and waits for it to finish.
+     * @param action - action to run
+     * @param name - name of the action, for logging if it fails
+     */
+    private void invokeAndWait(Runnable action, String name) {
+        try {
+            SwingUtilities.invokeAndWait(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            isRunning = false;
+        } catch (InvocationTargetException e) {
+            Logger.log(MessageLevel.ERROR, name + " failed: %s", e.getCause());
+        }
+    }
 
-            // limit refresh rate
-            try {
-                Thread.sleep(StateManager.getRenderSpeed());
-            } catch (InterruptedException e) {}
+    /**
+     * Renders a frame, and shows it right away when actively rendering.
+     * Drawing is clipped to the part of the screen that changed since the
+     * last frame. The whole frame is drawn again if the buffer contents were
+     * lost, which can happen when the display mode changes, or the window
+     * is covered. This must be run on the EDT.
+     */
+    private void renderFrame() {
+        isAnimating = StateManager.isAnimating();
+        Rectangle dirty = StateManager.takeDirty(getWidth(), getHeight());
+        if (dirty == null) {
+            return; // nothing has changed since the last frame
+        }
+        if (strategy == null) {
+            repaint(dirty);
+            return;
+        }
+        Rectangle full = new Rectangle(0, 0, getWidth(), getHeight());
+        if (!isBufferKept) {
+            dirty = full;
+        }
+        try {
+            do {
+                do {
+                    Graphics2D g2d = (Graphics2D)strategy.getDrawGraphics();
+                    try {
+                        g2d.clip(dirty);
+                        StateManager.render(g2d, alpha);
+                    } finally {
+                        g2d.dispose();
+                    }
+                    dirty = full;   // only matters if the contents have to be drawn again
+                } while (strategy.contentsRestored());
+                strategy.show();
+                Toolkit.getDefaultToolkit().sync();
+            } while (strategy.contentsLost());
+        } catch (IllegalStateException e) {    // canvas is no longer displayable
+            Logger.log(MessageLevel.WARNING, "BufferStrategy lost, falling back to repaint(): %s", e);
+            strategy = null;
+            if (canvas != null) {
+                remove(canvas);
+                canvas = null;
+                revalidate();
+            }
         }
     }
 
@@ -74,7 +292,7 @@ public class GamePanel extends JPanel implements Runnable {
         Graphics2D g2d = null;
         try {
             g2d = (Graphics2D)g.create();
-            StateManager.render(g2d);
+            StateManager.render(g2d, alpha);
         } finally {
             g2d.dispose();
         }
@@ -0,0 +1,211 @@
+package shapes;
+
+import shapes.Tetrominoes.TileMap;
+
+/**
+ * Occupancy board that backs a Grid. Every row of the grid is stored as a
+ * bitmask, where bit N is set when column N of that row is filled. A row that
+ * is wider than a single int word, is spread across multiple consecutive words.
+ * All of the rule queries (tile fits, line clears, game over) are answered
+ * from this board, so that they only cost a few AND / shift operations,
+ * instead of walking through GridTile objects.
+ * The board is surrounded by PAD cells of sentinel walls on the left, right,
+ * top and bottom, which are always filled. A probe that lands just outside of
+ * the grid simply hits a filled sentinel cell, so it never needs its own
+ * bounds checks, and can never throw.
+ */
+public class BitBoard {
+    public static final int PAD = TileMap.MAX_SIZE;    // sentinel cells on each side of the board
+
+    private static final int WORD_BITS  = Integer.SIZE;
+    private static final int WORD_SHIFT = 5;    // col >>> WORD_SHIFT is the word that holds col
+    private static final int WORD_MASK  = WORD_BITS - 1;
+
+    private final int colCount;
+    private final int rowCount;
+    private final int paddedCols;   // cols including the sentinel walls
+    private final int paddedRows;   // rows including the sentinel ceiling and floor
+    private final int wordCount;    // words per row
+    private final int[] emptyRow;   // words of a row that only has its sentinel walls filled
+    private final int[] words;      // row-major, wordCount words per row
+
+
+
+    /**
+     * Constructs a new empty board.
+     * @param colCount - number of columns
+     * @param rowCount - number of rows
+     */
+    public BitBoard(int colCount, int rowCount) {
+        if (colCount <= 0 || rowCount <= 0) {
+            throw new IllegalArgumentException("Invalid BitBoard size: " + colCount + " x " + rowCount);
+        }
+        this.colCount = colCount;
+        this.rowCount = rowCount;
+        paddedCols = colCount + (PAD * 2);
+        paddedRows = rowCount + (PAD * 2);
+        wordCount = (paddedCols + WORD_MASK) >>> WORD_SHIFT;
+        emptyRow = new int[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            emptyRow[i] = -1;
+        }
+        for (int col = 0; col < colCount; col++) {
+            int bit = col + PAD;
+            emptyRow[bit >>> WORD_SHIFT] &= ~(1 << bit);
+        }
+        words = new int[paddedRows * wordCount];
+        clear();
+    }
+
+    /**
+     * Checks to see if the col and row are within the limits of this board.
+     * @param col - col to check
+     * @param row - row to check
+     * @return true if contained within the board, false otherwise
+     */
+    public boolean contains(int col, int row) {
+        return col >= 0 && col < colCount && row >= 0 && row < rowCount;
+    }
+
+    /**
+     * *NOTE no bounds checking is done, so col and row must be contained
+     * within this board, or within PAD cells of it.
+     * @param col - col to check
+     * @param row - row to check
+     * @return true if the cell is filled, or is a sentinel, false otherwise
+     */
+    public boolean isFilled(int col, int row) {
+        int bit = col + PAD;
+        return (words[(row + PAD) * wordCount + (bit >>> WORD_SHIFT)] & (1 << bit)) != 0;
+    }
+
+    /**
+     * Checks to see if a tile could occupy the specified cell. Cells that are
+     * outside of the board are never free. This never throws, no matter how
+     * far outside of the board the cell is.
+     * @param col - col to check
+     * @param row - row to check
+     * @return true if the cell is in bounds and empty, false otherwise
+     */
+    public boolean isFree(int col, int row) {
+        int bit = col + PAD;
+        int paddedRow = row + PAD;
+        // any negative term means the cell is even beyond the sentinels
+        if ((bit | paddedRow | (paddedCols - 1 - bit) | (paddedRows - 1 - paddedRow)) < 0) {
+            return false;
+        }
+        return (words[paddedRow * wordCount + (bit >>> WORD_SHIFT)] & (1 << bit)) == 0;
+    }
+
+    /**
+     * Checks to see if a horizontal run of cells fits inside of a row. The
+     * run may cross over from one word of the row into the next. Any part of
+     * the run that lands on a sentinel wall, ceiling or floor doesn't fit.
+     * @param rowMask - mask of the cells to check, where bit 0 is the leftmost cell
+     * @param col - col that bit 0 of the rowMask lines up with
+     * @param row - row to check
+     * @return true if every cell in the mask is in bounds and empty
+     */
+    public boolean fits(int rowMask, int col, int row) {
+        int maskWidth = WORD_BITS - Integer.numberOfLeadingZeros(rowMask);
+        int bit = col + PAD;
+        int paddedRow = row + PAD;
+        if ((bit | paddedRow | (paddedCols - maskWidth - bit) | (paddedRows - 1 - paddedRow)) < 0) {
+            return false;
+        }
+        int index = paddedRow * wordCount + (bit >>> WORD_SHIFT);
+        int shift = bit & WORD_MASK;
+        if ((words[index] & (rowMask << shift)) != 0) {
+            return false;
+        }
+        // any part of the mask that spilled over, lands in the next word of the same row
+        int spill = (shift == 0) ? 0 : rowMask >>> (WORD_BITS - shift);
+        return spill == 0 || (words[index + 1] & spill) == 0;
+    }
+
+    /**
+     * Sets the filled status of the specified cell.
+     * *NOTE no bounds checking is done, so col and row must be contained
+     * within this board.
+     * @param col - col of the cell
+     * @param row - row of the cell
+     * @param filled - should the cell be filled
+     */
+    public void set(int col, int row, boolean filled) {
+        int bit = col + PAD;
+        int index = (row + PAD) * wordCount + (bit >>> WORD_SHIFT);
+        if (filled) {
+            words[index] |= (1 << bit);
+        } else {
+            words[index] &= ~(1 << bit);
+        }
+    }
+
+    /**
+     * @param row - row to check
+     * @return true if every column in the row is filled
+     */
+    public boolean isRowFull(int row) {
+        // the sentinel walls are always filled, so a full row is all ones
+        int index = (row + PAD) * wordCount;
+        for (int i = 0; i < wordCount; i++) {
+            if (words[index + i] != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param row - row to check
+     * @return true if no column in the row is filled
+     */
+    public boolean isRowEmpty(int row) {
+        int index = (row + PAD) * wordCount;
+        for (int i = 0; i < wordCount; i++) {
+            if (words[index + i] != emptyRow[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param row - row to access, which may be a sentinel row
+     * @param word - word within the row, where bit N of word 0 is col N - PAD
+     * @return the raw bitmask of the specified word of a row, including the
+     * sentinel walls
+     */
+    public int getWord(int row, int word) {
+        return words[(row + PAD) * wordCount + word];
+    }
+
+    /**
+     * Empties out every row in this board, leaving only the sentinels filled.
+     */
+    public void clear() {
+        int index = 0;
+        for (int row = 0; row < paddedRows; row++) {
+            boolean isSentinel = row < PAD || row >= rowCount + PAD;
+            for (int i = 0; i < wordCount; i++) {
+                words[index++] = isSentinel ? -1 : emptyRow[i];
+            }
+        }
+    }
+
+    public int getColCount() {
+        return colCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return number of int words that each row is stored in, including the
+     * sentinel walls
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+}
@@ -0,0 +1,77 @@
+package shapes;
+
+/**
+ * Codec for (col, row) coordinates packed into a single int. The col is
+ * stored in the low 16 bits and the row in the high 16 bits, both as signed
+ * values, so coordinates just outside of a grid, such as row -1 at spawn,
+ * can be packed too. Unlike a Point, a packed coordinate is a plain value,
+ * so it can never be shared between tiles by accident, and passing one
+ * around never creates any garbage.
+ */
+public final class Coord {
+    private static final int COL_MASK = 0xFFFF;
+    private static final int ROW_SHIFT = 16;
+
+
+
+    private Coord() {}  // prevent instantiation
+
+    /**
+     * @param col - col of the coordinate, from -32768 to 32767
+     * @param row - row of the coordinate, from -32768 to 32767
+     * @return the packed coordinate
+     */
+    public static int of(int col, int row) {
+        return (row << ROW_SHIFT) | (col & COL_MASK);
+    }
+
+    /**
+     * @param coord - packed coordinate
+     * @return col of the coordinate
+     */
+    public static int getCol(int coord) {
+        return (short)coord;
+    }
+
+    /**
+     * @param coord - packed coordinate
+     * @return row of the coordinate
+     */
+    public static int getRow(int coord) {
+        return coord >> ROW_SHIFT;
+    }
+
+    /**
+     * @param coord - packed coordinate
+     * @param colDX - cols to move
+     * @param rowDX - rows to move
+     * @return the coordinate moved by the specified amounts
+     */
+    public static int move(int coord, int colDX, int rowDX) {
+        return of(getCol(coord) + colDX, getRow(coord) + rowDX);
+    }
+
+    /**
+     * @param pt - Point to pack
+     * @return the packed coordinate of the point
+     */
+    public static int of(Point pt) {
+        return of(pt.getCol(), pt.getRow());
+    }
+
+    /**
+     * @param coord - packed coordinate
+     * @return a new Point, at the coordinate
+     */
+    public static Point toPoint(int coord) {
+        return new Point(getCol(coord), getRow(coord));
+    }
+
+    /**
+     * @param coord - packed coordinate
+     * @return a readable description of the coordinate, for debugging
+     */
+    public static String toString(int coord) {
+        return "Coord [" + getCol(coord) + ", " + getRow(coord) + "]";
+    }
+}
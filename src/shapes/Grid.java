@@ -2,14 +2,13 @@ package shapes;
 
 import shapes.Tetrominoes.Tetromino;
 import shapes.Tetrominoes.TileMap;
-import utils.GameDisplay;
+import utils.DirtyRegion;
 import utils.Logger;
 import utils.MessageLevel;
-import utils.TimerUtil;
 
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.TreeMap;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 /**
  * This class models a Grid playing field for various Tetrominoes. A tetromino
@@ -24,21 +23,76 @@ import java.util.TreeMap;
  * Created by David Kramer on 2/6/2016.
  */
 public class Grid {
-    public static final int COL_COUNT = 10;
-    public static final int ROW_COUNT = 16;
+    public static final int DEFAULT_COL_COUNT = 10;
+    public static final int DEFAULT_ROW_COUNT = 16;
+    public static final int MAX_COL_COUNT = 64;
+    public static final int MAX_ROW_COUNT = 4096;
 
-    private GridTile[] gridTiles;
+    private final int colCount;
+    private final int rowCount;
+
+    private BitBoard board;                 // authoritative occupancy, used for all rule queries
+    private GridTile[] gridTiles;           // view of the board, used for rendering
     private GridTile[] highlightedTiles;    // tiles that are currently highlighted
     private Tile[] shiftTiles;              // tiles that need to be shifted down
     private Tetromino fallingTetromino;     // tetromino that is currently dropping
+    private TileMap highlightMap;           // shape that the highlights were last computed for
+    private int highlightCol;               // pivot col that the highlights were last computed for
+    private boolean isHighlightValid;       // are the current highlights still correct?
+    private boolean isSlideEnabled = true;  // should hard drops slide into place when drawn?
+    private boolean isClearAnimated = true; // should cleared rows be drawn vanishing, or just disappear?
+    private int[] slideCells = new int[0];  // cell indices of the last hard drop, that slide into place
+    private int slideRows;                  // how many rows the last hard drop fell
+    private long slideStart;                // nanoTime that the last hard drop started sliding
+    private int[] clearRows = new int[0];   // rows that the last clear removed, that are drawn vanishing
+    private Color[] clearColors;            // colors of the cells in those rows, before they were cleared
+    private int[] clearRowMap;              // row that each row was shifted to by the last clear, or -1 if none
+    private long clearStart;                // nanoTime that the cleared rows started vanishing
+    private volatile GridSnapshot snapshot; // latest published state, that all drawing is done from
+    private boolean isBoardChanged = true;  // have the cells changed since the last publish?
+    private boolean[] changedRows;          // rows whose cells have changed since the last publish
+    private boolean isPieceChanged = true;  // has the falling tetromino changed since the last publish?
+    private int boardVersion;               // bumped by each publish that the board changed in
+    private BufferedImage boardLayer;       // locked cells and outlines, only redrawn when the board changes
+    private int layerVersion;               // board version that the board layer was drawn from
+    private int layerTileWidth;             // tile size that the board layer was drawn at
+    private int layerTileHeight;
+    private int layerClearStep = -1;        // clear step that the board layer was drawn at
+    private GridSnapshot dirtySnapshot;     // snapshot that the last collectDirty() was up to
+    private Rectangle dirtyBounds;          // screen bounds of the grid, as of the last collectDirty()
+    private int dirtySlideOffset;           // slide offset, as of the last collectDirty()
+    private int dirtyClearStep = -1;        // clear step, as of the last collectDirty()
+    private int[] rowFillCounts;            // how many grid tiles are filled, in each row
+    private int[] columnTops;               // skyline, the topmost filled row in each column, or rowCount if empty
     private int filledTileCount = 0;            // how many of the grid tiles are filled
+    private ZobristKeys zobristKeys;        // random keys that positions of this grid are hashed with
+    private long boardHash;                 // Zobrist hash of the filled cells
 
 
 
     /**
-     * Constructs a new create and initializes it.
+     * Constructs a new grid with the default size and initializes it.
      */
     public Grid() {
+        this(DEFAULT_COL_COUNT, DEFAULT_ROW_COUNT);
+    }
+
+    /**
+     * Constructs a new grid with the specified size and initializes it.
+     * @param colCount - number of columns, up to MAX_COL_COUNT
+     * @param rowCount - number of rows, up to MAX_ROW_COUNT
+     * @throws - IllegalArgumentException
+     */
+    public Grid(int colCount, int rowCount) {
+        if (colCount < TileMap.TILE_COUNT || colCount > MAX_COL_COUNT ||
+                rowCount < TileMap.TILE_COUNT || rowCount > MAX_ROW_COUNT) {
+            String error = String.format("Invalid Grid size (%d x %d). Must be within (%d x %d) and (%d x %d)!",
+                    colCount, rowCount, TileMap.TILE_COUNT, TileMap.TILE_COUNT, MAX_COL_COUNT, MAX_ROW_COUNT);
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
+        }
+        this.colCount = colCount;
+        this.rowCount = rowCount;
         init();
     }
 
@@ -46,16 +100,16 @@ public class Grid {
      * @return the width of the grid, taking into account the size of
      * all tiles.
      */
-    public static int getWidth() {
-        return (Tile.WIDTH + Tile.X_OFFSET) * Grid.COL_COUNT;
+    public int getWidth() {
+        return (Tile.WIDTH + Tile.X_OFFSET) * colCount;
     }
 
     /**
      * @return the height of the grid, taking into account the size of
      * all tiles.
      */
-    public static int getHeight() {
-        return (Tile.HEIGHT + Tile.Y_OFFSET) * Grid.ROW_COUNT;
+    public int getHeight() {
+        return (Tile.HEIGHT + Tile.Y_OFFSET) * rowCount;
     }
 
     /**
@@ -69,28 +123,44 @@ public class Grid {
      * Creates the grid by adding each individual grid tile to the array.
      */
     private void createGrid() {
-        gridTiles = new GridTile[COL_COUNT * ROW_COUNT];
+        board = new BitBoard(colCount, rowCount);
+        zobristKeys = new ZobristKeys(colCount, rowCount);
+        boardHash = 0;
+        rowFillCounts = new int[rowCount];
+        changedRows = new boolean[rowCount];
+        columnTops = new int[colCount];
+        gridTiles = new GridTile[colCount * rowCount];
         highlightedTiles = new GridTile[TileMap.TILE_COUNT];
+        for (int col = 0; col < colCount; col++) {
+            columnTops[col] = rowCount;
+        }
         int index = 0;
-        for (int row = 0; row < ROW_COUNT; row++) {
-            for (int col = 0; col < COL_COUNT; col++) {
-                GridTile t = new GridTile(col, row);
+        for (int row = 0; row < rowCount; row++) {
+            for (int col = 0; col < colCount; col++) {
+                GridTile t = new GridTile(this, col, row);
                 gridTiles[index++] = t;
             }
         }
-        Logger.log(MessageLevel.INFO, "(%d x %d) Grid Created", COL_COUNT, ROW_COUNT);
+        publish();
+        Logger.log(MessageLevel.INFO, "(%d x %d) Grid Created", colCount, rowCount);
     }
 
     /**
      * Clears out the grid from any previous tetrominoes, typically
-     * after a GameOver!
+     * after a GameOver! Each tile is cleared through updateCell(), which
+     * keeps the board and its counters in step, and any slide or clear
+     * that was still being drawn is dropped.
      */
     public void clear() {
         clearHighlights();
         for (GridTile t : gridTiles) {
             t.setPartialShapeTile(null);
         }
-        filledTileCount = 0;
+        slideCells = new int[0];
+        clearRows = new int[0];
+        clearColors = null;
+        clearRowMap = null;
+        isBoardChanged = true;
     }
 
     /**
@@ -98,11 +168,11 @@ public class Grid {
      * and rows are filled, denoted by an "F".
      */
     public void printGrid() {
-        for (int row = 0; row < ROW_COUNT; row++) {
-            for (int col = 0; col < COL_COUNT; col++) {
+        for (int row = 0; row < rowCount; row++) {
+            for (int col = 0; col < colCount; col++) {
                 String gridTile = " ";
 
-                if (get(col, row).isFilled()) {
+                if (board.isFilled(col, row)) {
                     gridTile = "F";
                 }
                 System.out.print("[" + gridTile + "]");
@@ -130,6 +200,29 @@ public class Grid {
         return gridTiles[getIndex(col, row)];
     }
 
+    /**
+     *
+     * @param coord - packed Coord of the grid tile
+     * @return grid tile at specified coord
+     */
+    public GridTile get(int coord) {
+        return get(Coord.getCol(coord), Coord.getRow(coord));
+    }
+
+    /**
+     * Fills or empties the cell at the specified coord.
+     * @param coord - packed Coord of the cell
+     * @param color - color to fill the cell with, or null to empty it
+     */
+    public void setCell(int coord, Color color) {
+        GridTile t = get(coord);
+        if (color != null) {
+            t.fill(color);
+        } else {
+            t.clear();
+        }
+    }
+
     /**
      *
      * @param col - column to access
@@ -138,7 +231,7 @@ public class Grid {
      */
     private int getIndex(int col, int row) {
         if (check(col, row)) {
-            return (COL_COUNT * row) + col;
+            return (colCount * row) + col;
         }
         return -1;  // shouldn't ever actually reach this
     }
@@ -156,8 +249,8 @@ public class Grid {
 
         if (col < 0 || row < 0) {
             error = "Invalid GridTile: Col < 0 || Row < 0!";
-        } else if (col >= COL_COUNT || row >= ROW_COUNT) {
-            error = "Invalid GridTile: Col >= " + COL_COUNT + " || Row >= " + ROW_COUNT;
+        } else if (col >= colCount || row >= rowCount) {
+            error = "Invalid GridTile: Col >= " + colCount + " || Row >= " + rowCount;
         } else {
             success = true;
         }
@@ -181,20 +274,30 @@ public class Grid {
     /**
      * Checks to see if we are able to clear. If we are, all the rows nums
      * are stored, so that they can be processed later, for actually clearing.
+     * @return number of rows being cleared
+     */
+    public int checkClear() {
+        return checkClear(0, rowCount - 1);
+    }
+
+    /**
+     * Checks to see if we are able to clear any of the rows within the
+     * specified range, such as the rows that a dropped Tetromino touched.
+     * @param fromRow - first row to check
+     * @param toRow - last row to check
+     * @return number of rows being cleared
      */
-    public void checkClear() {
-        int[] rowsToClear = new int[ROW_COUNT]; // store row nums, so we know which ones to clear!
+    public int checkClear(int fromRow, int toRow) {
+        fromRow = Math.max(fromRow, 0);
+        toRow = Math.min(toRow, rowCount - 1);
+        if (fromRow > toRow) {
+            return 0;
+        }
+        int[] rowsToClear = new int[toRow - fromRow + 1]; // store row nums, so we know which ones to clear!
         int clearCount = 0;
 
-        for (int row = 0; row < ROW_COUNT; row++) {
-            boolean canClear = true;
-            for (int col = 0; col < COL_COUNT; col++) {
-                if (!get(col, row).isFilled()) {
-                    canClear = false;
-                    break;
-                }
-            }
-            if (canClear) {
+        for (int row = fromRow; row <= toRow; row++) {
+            if (rowFillCounts[row] == colCount) {
                 rowsToClear[clearCount] = row;
                 clearCount++;
             }
@@ -202,202 +305,594 @@ public class Grid {
         if (clearCount > 0) {
             clearRows(rowsToClear, clearCount);
         }
+        return clearCount;
     }
 
     /**
      * Clears all the specified rows defined in the array, and limited
-     * by the limit.
+     * by the limit. The rows are cleared and the rows above are shifted
+     * down right away, so the grid is settled by the time this returns.
+     * If clears are animated, enough is kept to draw the rows vanishing
+     * afterwards, which only affects drawing.
      * @param rowsToClear
      * @param limit - length limit in array, rowsToClear may contain empty
      *                numerical values, when it was created
      */
     private void clearRows(int[] rowsToClear, int limit) {
-        GridTile[] tilesToClear = new GridTile[limit * COL_COUNT];
-        int index = 0;
+        int[] rowMap = null;
+        slideCells = new int[0];    // any slide is cut short, since the rows it slid into are moving
+        if (isClearAnimated) {
+            clearColors = new Color[limit * colCount];
+            for (int i = 0; i < limit; i++) {
+                for (int col = 0; col < colCount; col++) {
+                    clearColors[(colCount * i) + col] = get(col, rowsToClear[i]).getPartialShapeTile().getColor();
+                }
+            }
+            rowMap = new int[rowCount];
+        }
         for (int i = 0; i < limit; i++) {   // each row
             int row = rowsToClear[i];
-            for (int col = 0; col < COL_COUNT; col++) {
-                tilesToClear[index] = get(col, row);
-                index++;
+            for (int col = 0; col < colCount; col++) {
+                get(col, row).clear();
             }
         }
-        TimerUtil.animateClear(tilesToClear, this);
-        GameDisplay.increaseLineCount(limit);
+        updateShiftTiles(rowMap);
+        if (rowMap != null) {
+            clearRows = Arrays.copyOf(rowsToClear, limit);
+            clearRowMap = rowMap;
+            clearStart = System.nanoTime();
+        }
     }
 
-    public void updateShiftTiles() {
-        TreeMap<Integer, Tile[]> tileRowMap = new TreeMap<>();  // hold all tiles we need to shift down
-        for (int row = ROW_COUNT - 1; row >= 0; row--) {
-            tileRowMap.put(row, getTilesForRow(row));
+    /**
+     * Shifts every remaining row down, after rows have been cleared, so that
+     * there are no empty rows left underneath any filled rows. This is done
+     * in a single pass from the bottom of the grid to the top, and the
+     * partial shape tiles are moved over by reference.
+     * @param rowMap - array to store the row that each row was shifted to,
+     *                 or -1 if it was empty, or null if it isn't needed
+     */
+    private void updateShiftTiles(int[] rowMap) {
+        int destRow = rowCount - 1;    // next row that can be filled, from the bottom up
+        for (int row = rowCount - 1; row >= 0; row--) {
+            int shiftedRow = -1;
+            if (rowFillCounts[row] > 0) {
+                if (row != destRow) {
+                    moveRow(row, destRow);
+                }
+                shiftedRow = destRow;
+                destRow--;
+            }
+            if (rowMap != null) {
+                rowMap[row] = shiftedRow;
+            }
         }
-        clearTiles();
+    }
 
-        for (int row = ROW_COUNT - 1; row >= 0; row--) {
-            moveRowDown(row, tileRowMap.get(row));
+    /**
+     * Moves all the partial shape tiles from one row, to another empty row.
+     * @param fromRow - row to move tiles from
+     * @param toRow - empty row to move tiles to
+     */
+    private void moveRow(int fromRow, int toRow) {
+        for (int col = 0; col < colCount; col++) {
+            GridTile from = get(col, fromRow);
+            if (from.isFilled()) {
+                get(col, toRow).setPartialShapeTile(from.getPartialShapeTile());
+                from.clear();
+            }
         }
     }
 
-    private Tile[] getTilesForRow(int row) {
-        Tile[] rowTiles = new Tile[COL_COUNT];
-        for (int col = 0; col < COL_COUNT; col++) {
-            rowTiles[col] = get(col, row).getPartialShapeTile();
+    //TODO remove this later!
+    public void testFillGrid() {
+        for (int row = rowCount - 1; row >= rowCount - 6; row--) {
+            for (int col = 0; col < colCount - 1; col++) {
+                get(col,row).setPartialShapeTile(new Tile(Color.LIGHT_GRAY, false));
+            }
         }
-        return rowTiles;
     }
 
-    private void moveRowDown(int row, Tile[] rowToMove) {
-        Logger.log(MessageLevel.INFO, "STARTING ROW: %d", row);
-        while (row + 1 < ROW_COUNT && isRowClear(row + 1)) {
-            row++;
+    /**
+     * @return number of GridTiles that are currently filled
+     */
+    public int getFilledCount() {
+        return filledTileCount;
+    }
+
+    /**
+     * @param row - row to check
+     * @return number of GridTiles that are currently filled in the row
+     */
+    public int getRowFillCount(int row) {
+        return rowFillCounts[row];
+    }
+
+    /**
+     * Highlights the lowest available GridTiles that the actively
+     * falling Tetromino can occupy. Moving down never changes where the
+     * Tetromino will land, so the highlight is only recomputed when its
+     * column or rotation changes, or the grid itself has changed.
+     */
+    public void highlightTiles() {
+        isPieceChanged = true;
+        TileMap tileMap = fallingTetromino.getTileMap();
+        Tile pivot = fallingTetromino.getPivotTile();
+        int col = pivot.getCol();
+
+        if (isHighlightValid && col == highlightCol && tileMap == highlightMap) {
+            return;
+        }
+        clearHighlights();
+        if (tileMap.getCellCount() > highlightedTiles.length) {
+            highlightedTiles = new GridTile[tileMap.getCellCount()];
         }
-        Logger.log(MessageLevel.INFO, "ENDING ROW: %d", row);
+        int row = getDropRow(tileMap, col, pivot.getRow());
 
-        for (Tile t : rowToMove) {
-            if (t != null) {
-                /*
-                I have no idea why, but without cloning a tile, the actual
-                grid tile itself, gets moved and causes issues. I have no idea
-                where that bug is hiding, as I am passing around arrays of regular
-                tiles, NOT grid tiles. But cloning the tile, appears to work around
-                that issue just fine.
-                */
-                Tile newTile = t.clone();
-                newTile.setRow(row);
-                get(newTile.getGridLocation()).setPartialShapeTile(newTile);
+        // set grid tile highlights, based on where the shape will land
+        for (int i = 0; i < tileMap.getCellCount(); i++) {
+            int tileCol = col + tileMap.getCellCol(i);
+            int tileRow = row + tileMap.getCellRow(i);
+            if (board.contains(tileCol, tileRow)) {
+                GridTile t = get(tileCol, tileRow);
+                t.setHighlighted(true);
+                highlightedTiles[i] = t;
             }
         }
+        highlightCol = col;
+        highlightMap = tileMap;
+        isHighlightValid = true;
     }
 
     /**
-     * Checks to see if the specified row is clear.
-     * @param row
-     * @return
+     * Finds the row that a shape will land on, if it is dropped straight down.
+     * When the shape is inside the grid and above the skyline in all of its
+     * columns, this is just a comparison of its bottom profile against the
+     * skyline, which is then confirmed against the board. Otherwise the shape
+     * is tucked underneath something, so it is walked down row by row. Any
+     * tiles above the grid are first walked down onto it, since the sentinel
+     * ceiling isn't part of the skyline.
+     * @param tileMap - shape to drop
+     * @param pivotCol - col of the shape's pivot tile
+     * @param pivotRow - row of the shape's pivot tile
+     * @return the row of the pivot tile, once the shape has landed
      */
-    private boolean isRowClear(int row) {
-        boolean isClear = true;
-        for (int col = 0; col < COL_COUNT; col++) {
-            if (get(col, row).isFilled()) {
-                isClear = false;
-                break;
+    public int getDropRow(TileMap tileMap, int pivotCol, int pivotRow) {
+        int startRow = pivotRow;
+        while (startRow + tileMap.getMaskRow() < 0) {
+            if (!checkFit(tileMap, pivotCol, startRow + 1)) {
+                return startRow;
             }
+            startRow++;
         }
-        return isClear;
-    }
 
-    private Tile[] shiftTilesDown(Tile[] tilesToMove) {
-        int length = tilesToMove.length;
-        for (int i = length -1; i >= 0; i--) {
-            Tile t = tilesToMove[i];
-            int col = t.getCol();
-            int row = t.getRow();
+        int[] bottomRows = tileMap.getBottomRows();
+        int col = pivotCol + tileMap.getMaskCol();
+        int dropRow = Integer.MAX_VALUE;
+        boolean aboveSkyline = col >= 0 && col + bottomRows.length <= colCount;
 
-            while (!get(col, row).isFilled() && row < Grid.ROW_COUNT - 1) {
-                row++;
+        for (int i = 0; i < bottomRows.length && aboveSkyline; i++) {
+            if (bottomRows[i] == Integer.MIN_VALUE) {
+                continue;   // no tiles in this column
+            }
+            int top = columnTops[col + i];
+            if (startRow + bottomRows[i] < top) {
+                dropRow = Math.min(dropRow, top - 1 - bottomRows[i]);
+            } else {
+                aboveSkyline = false;
             }
+        }
 
-            if (get(col, row).isFilled()) {
-                row -= 1;
+        if (!aboveSkyline || dropRow < startRow || !checkFit(tileMap, pivotCol, dropRow)) {
+            dropRow = startRow;
+            while (checkFit(tileMap, pivotCol, dropRow + 1)) {
+                dropRow++;
             }
-            get(col, row).setPartialShapeTile(t);
         }
-        return tilesToMove;
+        return dropRow;
     }
 
-    //TODO remove this later!
-    public void testFillGrid() {
-        for (int row = ROW_COUNT - 1; row >= 10; row--) {
-            for (int col = 0; col < COL_COUNT - 1; col++) {
-                get(col,row).setPartialShapeTile(new Tile(Color.LIGHT_GRAY, false));
+    /**
+     * @param col - col to check
+     * @return the height of the stack in the specified column
+     */
+    public int getColumnHeight(int col) {
+        return rowCount - columnTops[col];
+    }
+
+    /**
+     * Resets all previously highlighted gridTiles, to a non-highlighted state.
+     */
+    private void clearHighlights() {
+        for (int i = 0; i < highlightedTiles.length; i++) {
+            if (highlightedTiles[i] != null) {
+                highlightedTiles[i].setHighlighted(false);
+                highlightedTiles[i] = null;
             }
         }
+        isHighlightValid = false;
+        isPieceChanged = true;
     }
 
     /**
-     * Clears out all tiles in the grid by removing their partial shape tiles.
+     * Renders everything to the screen. Only the latest published snapshot
+     * is drawn, so this can safely run on a different thread than the one
+     * that changes the grid. The locked cells are drawn from the board
+     * layer, so each frame only has to draw the layer, the landing spot and
+     * the moving tiles.
+     * @param g2d
      */
-    private void clearTiles() {
-        for (GridTile t : gridTiles) {
-            t.clear();
+    public void render(Graphics2D g2d) {
+        GridSnapshot s = snapshot;
+        if (Tile.isShowDebug()) {   // debug info is drawn per tile, on top of each one
+            drawGridTiles(g2d, s);
+        } else {
+            drawBoardLayer(g2d, s);
+            drawGhost(g2d, s);
         }
+        drawSliding(g2d, s);
+        drawFalling(g2d, s);
     }
 
     /**
-     * @return number of GridTiles that are currently filled
+     * Adds the parts of the screen that this grid will draw differently in
+     * the next frame, than in the last one. Only the cells that changed
+     * between the two snapshots are added, along with the old and new spots
+     * of the falling tetromino, its landing spot, and a hard drop that is
+     * still sliding. This must be called from the same thread as render().
+     * @param region - region to add to
      */
-    private int getFilledCount() {
-        int count = 0;
-        for (GridTile t : gridTiles) {
-            if (t.getPartialShapeTile() != null) {
-                count++;
+    public void collectDirty(DirtyRegion region) {
+        GridSnapshot s = snapshot;
+        GridSnapshot last = dirtySnapshot;
+        Rectangle bounds = getScreenBounds();
+        long now = System.nanoTime();
+        int slideOffset = s.getSlideOffset(now);
+        int clearStep = s.getClearStep(now);
+
+        if (last == null || !bounds.equals(dirtyBounds)) {  // moved or resized
+            if (dirtyBounds != null) {
+                region.add(dirtyBounds);
+            }
+            region.add(bounds);
+            region.add(getPieceBounds(last));   // pieces can be above the grid
+            region.add(getPieceBounds(s));
+        } else if (s != last) {
+            if (s.getBoardVersion() != last.getBoardVersion()) {
+                for (int row = 0; row < rowCount; row++) {
+                    Color[] cells = s.getCellRow(row);
+                    Color[] outlines = s.getOutlineRow(row);
+                    Color[] lastCells = last.getCellRow(row);
+                    Color[] lastOutlines = last.getOutlineRow(row);
+                    if (cells == lastCells && outlines == lastOutlines) {
+                        continue;   // shared row, so nothing in it changed
+                    }
+                    for (int col = 0; col < colCount; col++) {
+                        if (cells[col] != lastCells[col] || outlines[col] != lastOutlines[col]) {
+                            addCell(region, (colCount * row) + col, 0);
+                        }
+                    }
+                }
+                addCells(region, last.getSlideCells(), last.getSlideRows());
+                addCells(region, s.getSlideCells(), s.getSlideRows());
+            }
+            addCells(region, last.getGhostCells(), 0);
+            addCells(region, s.getGhostCells(), 0);
+            region.add(getPieceBounds(last));
+            region.add(getPieceBounds(s));
+        }
+        if (slideOffset != 0 || dirtySlideOffset != 0) {
+            addCells(region, s.getSlideCells(), s.getSlideRows());
+        }
+        if ((clearStep >= 0 || dirtyClearStep >= 0) && (clearStep != dirtyClearStep || s != last)) {
+            if (clearStep >= 0 && dirtyClearStep >= 0 && s.getBoardVersion() == last.getBoardVersion()) {
+                for (int row : s.getClearRows()) {  // only the vanishing cells have changed
+                    region.add(Tile.X_OFFSET, row * Tile.HEIGHT + Tile.Y_OFFSET,
+                               colCount * Tile.WIDTH + 1, Tile.HEIGHT + 1);
+                }
+            } else {    // the rows above are shifting down
+                region.add(bounds);
             }
         }
-        return count;
+        dirtySnapshot = s;
+        dirtyBounds = bounds;
+        dirtySlideOffset = slideOffset;
+        dirtyClearStep = clearStep;
     }
 
-    private boolean checkTileFitDown(Tile tileToCheck) {
-        boolean doesFit = true;
+    /**
+     * Adds cells to a dirty region.
+     * @param region - region to add to
+     * @param cells - cell indices to add
+     * @param rowsAbove - how many rows above each cell to add as well
+     */
+    private void addCells(DirtyRegion region, int[] cells, int rowsAbove) {
+        for (int index : cells) {
+            addCell(region, index, rowsAbove);
+        }
+    }
 
-        GridTile t = get(tileToCheck.getGridLocation());
+    /**
+     * Adds a cell to a dirty region. Outlines cover one extra pixel on the
+     * right and bottom, so that pixel is added too.
+     * @param region - region to add to
+     * @param index - index of the cell
+     * @param rowsAbove - how many rows above the cell to add as well
+     */
+    private void addCell(DirtyRegion region, int index, int rowsAbove) {
+        int col = index % colCount;
+        int row = index / colCount;
+        region.add(col * Tile.WIDTH + Tile.X_OFFSET, (row - rowsAbove) * Tile.HEIGHT + Tile.Y_OFFSET,
+                   Tile.WIDTH + 1, (rowsAbove + 1) * Tile.HEIGHT + 1);
+    }
 
-        if (t.isFilled()) {
-            doesFit = false;
+    /**
+     * @param s - snapshot to get the falling tetromino of, or null
+     * @return screen bounds of the falling tetromino, which are empty if
+     * there isn't one
+     */
+    private Rectangle getPieceBounds(GridSnapshot s) {
+        Rectangle bounds = new Rectangle();
+        if (s == null || !s.hasPiece()) {
+            return bounds;
         }
-        if (tileToCheck.getRow() + 1 >= Grid.ROW_COUNT) {
-            doesFit = false;
+        for (int i = 0; i < s.getPieceTileCount(); i++) {
+            Rectangle tile = new Rectangle(s.getPieceCol(i) * Tile.WIDTH + Tile.X_OFFSET,
+                                           s.getPieceRow(i) * Tile.HEIGHT + Tile.Y_OFFSET,
+                                           Tile.WIDTH + 1, Tile.HEIGHT + 1);
+            if (i == 0) {
+                bounds = tile;
+            } else {
+                bounds.add(tile);
+            }
         }
-        return doesFit;
+        return bounds;
     }
 
     /**
-     * Highlights the lowest available GridTiles that the actively
-     * falling Tetromino can occupy.
+     * @return screen bounds of the cells of this grid, including the extra
+     * pixel that outlines cover on the right and bottom
      */
-    public void highlightTiles() {
-        clearHighlights();
-        // create temp tiles array for testing fitting within the grid
-        Tile[] tiles = Tetromino.cloneTiles(fallingTetromino.getActiveTiles());
+    private Rectangle getScreenBounds() {
+        return new Rectangle(Tile.X_OFFSET, Tile.Y_OFFSET,
+                             colCount * Tile.WIDTH + 1, rowCount * Tile.HEIGHT + 1);
+    }
 
-        while (Tetromino.checkFitDown(tiles)) {
-            Tetromino.moveTilesDown(tiles);
+    /**
+     * Publishes a new snapshot of this grid for drawing, if anything has
+     * changed since the last one. This should be called once at the end of
+     * every logic tick. Only the rows of cells that have actually changed
+     * are copied, every other row is shared with the last snapshot.
+     */
+    public void publish() {
+        if (!isBoardChanged && !isPieceChanged) {
+            return;
         }
-        // set grid tile highlights, based on where the tiles ended up
-        for (int i = 0; i < tiles.length; i++) {
-            Point pt = tiles[i].getGridLocation();
-            GridTile t = get(pt);
-            t.setHighlighted(true);
-            highlightedTiles[i] = t;
+        GridSnapshot last = snapshot;
+        Color[][] cellRows;
+        Color[][] outlineRows;
+        if (isBoardChanged || last == null) {
+            boardVersion++;
+            cellRows = new Color[rowCount][];
+            outlineRows = new Color[rowCount][];
+            for (int row = 0; row < rowCount; row++) {
+                if (last == null || changedRows[row]) {
+                    Color[] cells = new Color[colCount];
+                    Color[] outlines = new Color[colCount];
+                    for (int col = 0; col < colCount; col++) {
+                        GridTile t = gridTiles[(colCount * row) + col];
+                        cells[col] = t.isFilled() ? t.getPartialShapeTile().getColor() : null;
+                        outlines[col] = t.getColor();
+                    }
+                    cellRows[row] = cells;
+                    outlineRows[row] = outlines;
+                    changedRows[row] = false;
+                } else {
+                    cellRows[row] = last.getCellRow(row);
+                    outlineRows[row] = last.getOutlineRow(row);
+                }
+            }
+        } else {
+            cellRows = last.getCellRows();
+            outlineRows = last.getOutlineRows();
         }
+
+        int ghostCount = 0;
+        for (GridTile t : highlightedTiles) {
+            if (t != null) {
+                ghostCount++;
+            }
+        }
+        int[] ghostCells = new int[ghostCount];
+        for (int i = 0, index = 0; i < highlightedTiles.length; i++) {
+            if (highlightedTiles[i] != null) {
+                ghostCells[index++] = highlightedTiles[i].getNum();
+            }
+        }
+
+        int[] pieceCols = new int[0];
+        int[] pieceRows = new int[0];
+        Color pieceColor = null;
+        if (fallingTetromino != null) {
+            Tile[] tiles = fallingTetromino.getActiveTiles();
+            pieceCols = new int[tiles.length];
+            pieceRows = new int[tiles.length];
+            for (int i = 0; i < tiles.length; i++) {
+                pieceCols[i] = tiles[i].getCol();
+                pieceRows[i] = tiles[i].getRow();
+            }
+            pieceColor = fallingTetromino.getColor();
+        }
+
+        snapshot = new GridSnapshot(colCount, rowCount, cellRows, outlineRows, ghostCells,
+                                    pieceCols, pieceRows, pieceColor, slideCells, slideRows, slideStart,
+                                    clearRows, clearColors, clearRowMap, clearStart, boardVersion);
+        isBoardChanged = false;
+        isPieceChanged = false;
     }
 
     /**
-     * Resets all previously highlighted gridTiles, to a non-highlighted state.
+     * @return the latest published snapshot of this grid
      */
-    private void clearHighlights() {
-        for (GridTile t : highlightedTiles) {
-            if (t != null) {
-                t.setHighlighted(false);
+    public GridSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Starts sliding the falling tetromino into place after a hard drop. The
+     * tetromino has already been moved, so this only affects drawing. Its
+     * tiles are drawn offset upwards, and the offset shrinks to nothing over
+     * Speeds.DROP milliseconds per row dropped.
+     * @param rows - how many rows the falling tetromino was dropped
+     */
+    public void slideFalling(int rows) {
+        slideCells = new int[0];    // any previous slide is cut short
+        isBoardChanged = true;      // sliding cells are left out of the board layer
+        if (isSlideEnabled && rows > 0 && fallingTetromino != null) {
+            Tile[] tiles = fallingTetromino.getActiveTiles();
+            slideCells = new int[tiles.length];
+            for (int i = 0; i < tiles.length; i++) {
+                slideCells[i] = (colCount * tiles[i].getRow()) + tiles[i].getCol();
             }
+            slideRows = rows;
+            slideStart = System.nanoTime();
         }
+        isPieceChanged = true;
     }
 
     /**
-     * Renders everything to the screen.
+     * Draws the board layer, first redrawing it if the board, the tile
+     * size, or how far cleared rows have vanished has changed since it was
+     * last drawn.
      * @param g2d
+     * @param s - snapshot to draw
      */
-    public void render(Graphics2D g2d) {
-        drawGridTiles(g2d);
-        if (fallingTetromino != null) {
-            fallingTetromino.render(g2d);
+    private void drawBoardLayer(Graphics2D g2d, GridSnapshot s) {
+        int clearStep = s.getClearStep(System.nanoTime());
+        if (boardLayer == null || layerVersion != s.getBoardVersion() || layerClearStep != clearStep
+                || layerTileWidth != Tile.WIDTH || layerTileHeight != Tile.HEIGHT) {
+            updateBoardLayer(s, clearStep);
+        }
+        g2d.drawImage(boardLayer, Tile.X_OFFSET, Tile.Y_OFFSET, null);
+    }
+
+    /**
+     * Redraws the board layer from a snapshot. The layer is opaque, with
+     * the same black background that the grid is drawn over, since opaque
+     * images are by far the cheapest to draw. Outlines cover one extra
+     * pixel on the right and bottom, so the layer is one pixel larger than
+     * the grid.
+     * @param s - snapshot to draw from
+     * @param clearStep - clear step to draw at
+     */
+    private void updateBoardLayer(GridSnapshot s, int clearStep) {
+        int width = Tile.WIDTH;
+        int height = Tile.HEIGHT;
+        if (boardLayer == null || layerTileWidth != width || layerTileHeight != height) {
+            boardLayer = TileSprites.createCompatibleImage(Math.max(colCount * width + 1, 1),
+                    Math.max(rowCount * height + 1, 1), Transparency.OPAQUE);
+            layerTileWidth = width;
+            layerTileHeight = height;
+        }
+        Graphics2D g2d = boardLayer.createGraphics();
+        try {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, boardLayer.getWidth(), boardLayer.getHeight());
+            for (int index = 0; index < gridTiles.length; index++) {
+                int x = (index % colCount) * width;
+                int y = (index / colCount) * height;
+                Color color = s.getDrawnColor(index, clearStep);
+                if (color != null && !s.isSliding(index)) {
+                    TileSprites.draw(g2d, TileSprites.KIND_FILLED, color, x, y, width, height);
+                } else {
+                    g2d.setColor(s.getOutlineColor(index));
+                    g2d.drawRect(x, y, width, height);
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+        layerVersion = s.getBoardVersion();
+        layerClearStep = clearStep;
+    }
+
+    /**
+     * Draws the highlighted landing spot over the board layer. Only the
+     * inside of each cell is filled in, since its outline is already on the
+     * layer, and the outlines of neighboring cells must stay on top.
+     * @param g2d
+     * @param s - snapshot to draw
+     */
+    private void drawGhost(Graphics2D g2d, GridSnapshot s) {
+        g2d.setColor(GridTile.HIGHLIGHT_COLOR);
+        for (int index : s.getGhostCells()) {
+            if (!s.isFilled(index)) {
+                int x = (index % colCount) * Tile.WIDTH + Tile.X_OFFSET;
+                int y = (index / colCount) * Tile.HEIGHT + Tile.Y_OFFSET;
+                g2d.fillRect(x + 1, y + 1, Tile.WIDTH - 1, Tile.HEIGHT - 1);
+            }
+        }
+    }
+
+    /**
+     * Draws the locked cells of the last hard drop, offset by however far
+     * they still have to slide.
+     * @param g2d
+     * @param s - snapshot to draw
+     */
+    private void drawSliding(Graphics2D g2d, GridSnapshot s) {
+        int offset = s.getSlideOffset(System.nanoTime());
+        for (int index : s.getSlideCells()) {
+            if (s.isFilled(index)) {
+                Tile.draw(g2d, s.getCellColor(index), index % colCount, index / colCount, offset);
+            }
         }
     }
 
+    /**
+     * Draws the falling tetromino.
+     * @param g2d
+     * @param s - snapshot to draw
+     */
+    private void drawFalling(Graphics2D g2d, GridSnapshot s) {
+        if (s.hasPiece()) {
+            int count = s.getPieceTileCount();
+            for (int i = 0; i < count; i++) {
+                Tile.draw(g2d, s.getPieceColor(), s.getPieceCol(i), s.getPieceRow(i), 0);
+            }
+            if (Tile.isShowDebug()) {
+                Tile.drawPivotDebug(g2d, s.getPieceCol(count - 1), s.getPieceRow(count - 1));
+            }
+        }
+    }
+
+    /**
+     * Sets whether hard drops should slide into place when drawn, or
+     * just appear where they landed.
+     * @param isSlideEnabled - should hard drops slide
+     */
+    public void setSlideEnabled(boolean isSlideEnabled) {
+        this.isSlideEnabled = isSlideEnabled;
+    }
+
+    /**
+     * Sets whether cleared rows are drawn vanishing, one col at a time, or
+     * just disappear. Either way, they are cleared as soon as they fill up,
+     * so this only affects drawing.
+     * @param isClearAnimated - should clears be animated
+     */
+    public void setClearAnimated(boolean isClearAnimated) {
+        this.isClearAnimated = isClearAnimated;
+    }
+
     /**
      * Draws all the grid tiles to the screen.
      * @param g2d
+     * @param s - snapshot to draw
      */
-    private void drawGridTiles(Graphics2D g2d) {
+    private void drawGridTiles(Graphics2D g2d, GridSnapshot s) {
         for (GridTile t : gridTiles) {
-            t.render(g2d);
+            t.render(g2d, s);
         }
     }
 
@@ -415,6 +910,8 @@ public class Grid {
      */
     public void setFallingTetromino(Tetromino t) {
         this.fallingTetromino = t;
+        isHighlightValid = false;
+        isPieceChanged = true;
         centerTetromino(t);
         t.updateTiles();
     }
@@ -424,7 +921,29 @@ public class Grid {
      * @param t - Tetromino to center
      */
     private void centerTetromino(Tetromino t) {
-        t.setPivotGridLocation(new Point(5, -1));
+        t.setPivotGridLocation(colCount / 2, getSpawnRow(t.getTileMap(Tetromino.ORIENTATION_NORTH)));
+    }
+
+    /**
+     * Pieces spawn with their topmost tile just above the grid, so that
+     * their first move down brings that tile onto row 0. Pieces with tiles
+     * above their pivot tile have to spawn lower, or those tiles would be
+     * stuck in the sentinel ceiling of the board.
+     * @param tileMap - shape of the tetromino, in its spawn orientation
+     * @return row of the pivot tile, when the tetromino spawns
+     */
+    private int getSpawnRow(TileMap tileMap) {
+        return -1 - tileMap.getMaskRow();
+    }
+
+    /**
+     * Checks whether a piece can be played in this grid at all, by fitting
+     * it where it spawns, after its first move down, on an empty grid.
+     * @param tileMap - shape of the piece, in its spawn orientation
+     * @return true if the shape fits within the walls and floor, where it spawns
+     */
+    public boolean canSpawn(TileMap tileMap) {
+        return checkFit(tileMap, colCount / 2, getSpawnRow(tileMap) + 1);
     }
 
     /**
@@ -433,15 +952,59 @@ public class Grid {
      * @return true if it fits, false otherwise
      */
     public boolean checkTileFit(Point pt) {
-        boolean doesFit = true;
-        try {
-            if (check(pt)) {
-                doesFit = !(get(pt).isFilled());
+        return isFree(pt.getCol(), pt.getRow());
+    }
+
+    /**
+     * Checks to see if a tile would fit at the specified col and row
+     * @param col - col to check
+     * @param row - row to check
+     * @return true if it fits, false otherwise
+     */
+    public boolean checkTileFit(int col, int row) {
+        return isFree(col, row);
+    }
+
+    /**
+     * Checks to see if a tile could occupy the specified cell. Probes that
+     * land outside of the grid hit the sentinel walls of the board, so this
+     * never throws, and never has to build an error message.
+     * @param col - col to check
+     * @param row - row to check
+     * @return true if the cell is in bounds and empty, false otherwise
+     */
+    public boolean isFree(int col, int row) {
+        return board.isFree(col, row);
+    }
+
+    /**
+     * Checks to see if a tile could occupy the specified cell.
+     * @param coord - packed Coord of the cell
+     * @return true if the cell is in bounds and empty, false otherwise
+     */
+    public boolean isFree(int coord) {
+        return board.isFree(Coord.getCol(coord), Coord.getRow(coord));
+    }
+
+    /**
+     * Checks to see if a whole shape fits in the grid, by testing each of
+     * its precomputed row masks against the board.
+     * @param tileMap - shape to check
+     * @param pivotCol - col of the shape's pivot tile
+     * @param pivotRow - row of the shape's pivot tile
+     * @return true if every tile of the shape fits, false otherwise
+     */
+    public boolean checkFit(TileMap tileMap, int pivotCol, int pivotRow) {
+        int[] rowMasks = tileMap.getRowMasks();
+        int col = pivotCol + tileMap.getMaskCol();
+        int row = pivotRow + tileMap.getMaskRow();
+
+        for (int i = 0; i < rowMasks.length; i++) {
+            if (!board.fits(rowMasks[i], col, row + i)) {
+                return false;
             }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            doesFit = false;
         }
-        return doesFit;
+        return true;
     }
 
     /**
@@ -450,19 +1013,20 @@ public class Grid {
      * @return true if it fits, false otherwise
      */
     public boolean checkTileFit(Tile tile) {
-        return checkTileFit(tile.getGridLocation());
+        return isFree(tile.getCoord());
     }
 
     /**
      * Checks to see if the game is over. This occurs if the
      * falling tetromino can't move down and it's pivot tile is
-     * at the top of the screen.
+     * at the top of the screen, no more than a row below where it spawned.
      * @return true if gameover, false otherwise
      */
     public boolean checkGameOver() {
         boolean gameOver = false;
         if (!fallingTetromino.checkFitDown()) {
-            if (fallingTetromino.getPivotTile().getRow() <= 0) {
+            TileMap tileMap = fallingTetromino.getTileMap(Tetromino.ORIENTATION_NORTH);
+            if (fallingTetromino.getPivotTile().getRow() <= getSpawnRow(tileMap) + 1) {
                 gameOver = true;
             }
         }
@@ -470,12 +1034,127 @@ public class Grid {
     }
 
     /**
-     * Drops the currently falling tetromino.
+     * Drops the currently falling tetromino, locking it into the grid.
+     * After this, there is no falling tetromino until the next one is set.
+     * @return number of rows cleared by the drop
      */
-    public void dropFalling() {
+    public int dropFalling() {
         clearHighlights();
-        updateGrid();
-        checkClear();
+        clearRows = new int[0];     // any previous clear is cut short
+        Tile[] tiles = fallingTetromino.getActiveTiles();
+        fallingTetromino = null;
+        isPieceChanged = true;
+        updateGrid(tiles);
+        return checkClear(getTopRow(tiles), getBottomRow(tiles));
+    }
+
+    /**
+     * Updates the occupancy board and fill counters, whenever one of the
+     * GridTiles in this grid becomes filled or is cleared out.
+     * @param col - col of the GridTile
+     * @param row - row of the GridTile
+     * @param filled - is the GridTile now filled
+     */
+    void updateCell(int col, int row, boolean filled) {
+        board.set(col, row, filled);
+        int delta = filled ? 1 : -1;
+        rowFillCounts[row] += delta;
+        filledTileCount += delta;
+        updateColumnTop(col, row, filled);
+        boardHash ^= zobristKeys.getCellKey(col, row);
+        isHighlightValid = false;
+        isBoardChanged = true;
+        changedRows[row] = true;
+    }
+
+    /**
+     * Lets this grid know that the appearance of one of its GridTiles has
+     * changed, so that it is included in the next snapshot.
+     * @param row - row of the GridTile
+     */
+    void markChanged(int row) {
+        isBoardChanged = true;
+        changedRows[row] = true;
+    }
+
+    /**
+     * Updates the skyline of a column, after one of its cells has changed.
+     * @param col - col of the cell
+     * @param row - row of the cell
+     * @param filled - is the cell now filled
+     */
+    private void updateColumnTop(int col, int row, boolean filled) {
+        if (filled) {
+            if (row < columnTops[col]) {
+                columnTops[col] = row;
+            }
+        } else if (row == columnTops[col]) {
+            int top = row + 1;
+            while (top < rowCount && !board.isFilled(col, top)) {
+                top++;
+            }
+            columnTops[col] = top;
+        }
+    }
+
+    /**
+     * @return number of columns in this grid
+     */
+    public int getColCount() {
+        return colCount;
+    }
+
+    /**
+     * @return number of rows in this grid
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the Zobrist hash of the filled cells of this grid. It is kept up
+     * to date as cells are filled and emptied, so this is always O(1).
+     * Positions with the same filled cells, have the same hash.
+     * @return hash of the filled cells
+     */
+    public long getBoardHash() {
+        return boardHash;
+    }
+
+    /**
+     * Gets the Zobrist hash of the falling tetromino, which covers its type,
+     * orientation and position.
+     * @return hash of the falling tetromino, or 0 if there isn't one
+     */
+    public long getPieceHash() {
+        if (fallingTetromino == null) {
+            return 0;
+        }
+        Tile pivot = fallingTetromino.getPivotTile();
+        return zobristKeys.getPieceKey(fallingTetromino.getType(), fallingTetromino.getOrientation(),
+                                       pivot.getCol(), pivot.getRow());
+    }
+
+    /**
+     * @return Zobrist hash of the whole position, which is the filled cells
+     * along with the falling tetromino
+     */
+    public long getHash() {
+        return boardHash ^ getPieceHash();
+    }
+
+    /**
+     * @return the random keys that positions of this grid are hashed with
+     */
+    public ZobristKeys getZobristKeys() {
+        return zobristKeys;
+    }
+
+    /**
+     * @return the occupancy board of this grid
+     */
+    public BitBoard getBoard() {
+        return board;
     }
 
     /**
@@ -495,15 +1174,32 @@ public class Grid {
         for (int i = 0; i < tiles.length; i++) {
             Tile t = tiles[i];
             if (t != null) {
-                get(t.getGridLocation()).setPartialShapeTile(t);
+                get(t.getCoord()).setPartialShapeTile(t);
             }
         }
     }
 
     /**
-     * Updates the grid with the current tiles from the falling shape.
+     * @param tiles - tiles to check
+     * @return the topmost row that any of the tiles occupy
      */
-    private void updateGrid() {
-        updateGrid(fallingTetromino.getActiveTiles());
+    private static int getTopRow(Tile[] tiles) {
+        int top = Integer.MAX_VALUE;
+        for (Tile t : tiles) {
+            top = Math.min(top, t.getRow());
+        }
+        return top;
+    }
+
+    /**
+     * @param tiles - tiles to check
+     * @return the bottommost row that any of the tiles occupy
+     */
+    private static int getBottomRow(Tile[] tiles) {
+        int bottom = Integer.MIN_VALUE;
+        for (Tile t : tiles) {
+            bottom = Math.max(bottom, t.getRow());
+        }
+        return bottom;
     }
 }
@@ -0,0 +1,284 @@
+package shapes;
+
+import utils.Speeds;
+
+import java.awt.*;
+
+/**
+ * Immutable copy of everything that is needed to draw a Grid at a single point
+ * in time: the locked cells, the falling Tetromino and its highlighted landing
+ * spot. A Grid publishes a new snapshot after each logic tick, and all drawing
+ * is done from the latest published snapshot, so the game logic and the
+ * painting never have to share any state that is still being changed.
+ * *NOTE none of the arrays held by a snapshot are ever modified once it has
+ * been published, and some of them are shared between snapshots. The cells
+ * are held one row per array, so that only the rows that changed need to be
+ * copied for the next snapshot.
+ */
+public final class GridSnapshot {
+    private static final long SLIDE_NANOS_PER_ROW = Speeds.DROP * 1000000L;
+    private static final long CLEAR_NANOS = Speeds.CLEAR * 1000000L;
+
+    private final int colCount;
+    private final int rowCount;
+    private final Color[][] cellRows;       // color of the locked tile in each cell, or null if empty, by row
+    private final Color[][] outlineRows;    // outline color of each GridTile, by row
+    private final int[] ghostCells;         // cell indices of the highlighted landing spot
+    private final int[] pieceCols;          // cols of the falling tetromino tiles, pivot tile last
+    private final int[] pieceRows;          // rows of the falling tetromino tiles, pivot tile last
+    private final Color pieceColor;         // color of the falling tetromino, or null if there isn't one
+    private final int[] slideCells;         // cell indices of the last hard drop, that slide into place
+    private final int slideRows;            // how many rows the last hard drop fell
+    private final long slideStart;          // nanoTime that the last hard drop started sliding
+    private final int[] clearRows;          // rows that the last clear removed, before the rows above shifted down
+    private final Color[] clearColors;      // colors of the cells in those rows, one row after another
+    private final int[] clearRowMap;        // row that each row was shifted to by the last clear, or -1 if none
+    private final long clearStart;          // nanoTime that the cleared rows started vanishing
+    private final int boardVersion;         // changes whenever the locked cells, or their appearance, change
+
+
+
+    GridSnapshot(int colCount, int rowCount, Color[][] cellRows, Color[][] outlineRows, int[] ghostCells,
+                 int[] pieceCols, int[] pieceRows, Color pieceColor,
+                 int[] slideCells, int slideRows, long slideStart,
+                 int[] clearRows, Color[] clearColors, int[] clearRowMap, long clearStart, int boardVersion) {
+        this.colCount = colCount;
+        this.rowCount = rowCount;
+        this.cellRows = cellRows;
+        this.outlineRows = outlineRows;
+        this.ghostCells = ghostCells;
+        this.pieceCols = pieceCols;
+        this.pieceRows = pieceRows;
+        this.pieceColor = pieceColor;
+        this.slideCells = slideCells;
+        this.slideRows = slideRows;
+        this.slideStart = slideStart;
+        this.clearRows = clearRows;
+        this.clearColors = clearColors;
+        this.clearRowMap = clearRowMap;
+        this.clearStart = clearStart;
+        this.boardVersion = boardVersion;
+    }
+
+    /**
+     * @param col - col of the cell
+     * @param row - row of the cell
+     * @return index of the cell, which is the same as its GridTile number
+     */
+    public int getIndex(int col, int row) {
+        return (colCount * row) + col;
+    }
+
+    /**
+     * @param index - index of the cell
+     * @return true if the cell holds a locked tile
+     */
+    public boolean isFilled(int index) {
+        return getCellColor(index) != null;
+    }
+
+    /**
+     * @param index - index of the cell
+     * @return color of the locked tile in the cell, or null if it is empty
+     */
+    public Color getCellColor(int index) {
+        return cellRows[index / colCount][index % colCount];
+    }
+
+    /**
+     * @param index - index of the cell
+     * @return outline color of the cell
+     */
+    public Color getOutlineColor(int index) {
+        return outlineRows[index / colCount][index % colCount];
+    }
+
+    /**
+     * @param index - index of the cell
+     * @return true if the cell is part of the highlighted landing spot
+     */
+    public boolean isGhost(int index) {
+        return contains(ghostCells, index);
+    }
+
+    /**
+     * @param index - index of the cell
+     * @return true if the cell holds a tile of the last hard drop
+     */
+    public boolean isSliding(int index) {
+        return contains(slideCells, index);
+    }
+
+    /**
+     * @param now - current nanoTime
+     * @return vertical pixel offset to draw the sliding cells at, which is
+     * 0 once they have finished sliding into place
+     */
+    public int getSlideOffset(long now) {
+        long duration = slideRows * SLIDE_NANOS_PER_ROW;
+        long elapsed = now - slideStart;
+        if (elapsed >= duration) {
+            return 0;
+        }
+        return (int)(-slideRows * Tile.HEIGHT * (duration - elapsed) / duration);
+    }
+
+    /**
+     * Cleared rows are removed from the grid right away, but they are drawn
+     * vanishing one col at a time, from left to right, over Speeds.CLEAR
+     * milliseconds. Until then, the grid is drawn the way it was before the
+     * rows above them shifted down.
+     * @param now - current nanoTime
+     * @return number of cols that the cleared rows have vanished from, or -1
+     * if there aren't any cleared rows left to draw
+     */
+    public int getClearStep(long now) {
+        long elapsed = now - clearStart;
+        if (clearRows.length == 0 || elapsed >= CLEAR_NANOS) {
+            return -1;
+        }
+        return (int)(colCount * Math.max(elapsed, 0) / CLEAR_NANOS);
+    }
+
+    /**
+     * @param index - index of the cell
+     * @param clearStep - clear step to draw, from getClearStep()
+     * @return color to draw the locked tile in the cell with, or null if it
+     * is drawn empty
+     */
+    public Color getDrawnColor(int index, int clearStep) {
+        if (clearStep < 0) {
+            return getCellColor(index);
+        }
+        int col = index % colCount;
+        int row = index / colCount;
+        for (int i = 0; i < clearRows.length; i++) {
+            if (clearRows[i] == row) {
+                return col < clearStep ? null : clearColors[(colCount * i) + col];
+            }
+        }
+        int shiftedRow = clearRowMap[row];
+        return shiftedRow < 0 ? null : cellRows[shiftedRow][col];
+    }
+
+    /**
+     * @return rows that the last clear removed
+     */
+    public int[] getClearRows() {
+        return clearRows;
+    }
+
+    /**
+     * @return cell indices of the last hard drop
+     */
+    public int[] getSlideCells() {
+        return slideCells;
+    }
+
+    /**
+     * @return how many rows the last hard drop fell
+     */
+    public int getSlideRows() {
+        return slideRows;
+    }
+
+    /**
+     * @return cell indices of the highlighted landing spot
+     */
+    public int[] getGhostCells() {
+        return ghostCells;
+    }
+
+    /**
+     * Two snapshots with the same board version have the same locked cells,
+     * drawn the same way, so anything drawn from those cells can be reused.
+     * @return version of the locked cells
+     */
+    public int getBoardVersion() {
+        return boardVersion;
+    }
+
+    /**
+     * @return true if there is a falling tetromino
+     */
+    public boolean hasPiece() {
+        return pieceColor != null;
+    }
+
+    /**
+     * @return number of tiles in the falling tetromino
+     */
+    public int getPieceTileCount() {
+        return pieceCols.length;
+    }
+
+    /**
+     * @param i - index of the tile, where the last tile is the pivot tile
+     * @return col of the falling tetromino tile
+     */
+    public int getPieceCol(int i) {
+        return pieceCols[i];
+    }
+
+    /**
+     * @param i - index of the tile, where the last tile is the pivot tile
+     * @return row of the falling tetromino tile
+     */
+    public int getPieceRow(int i) {
+        return pieceRows[i];
+    }
+
+    /**
+     * @return color of the falling tetromino
+     */
+    public Color getPieceColor() {
+        return pieceColor;
+    }
+
+    public int getColCount() {
+        return colCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Rows that are the same array in two snapshots, hold the same cells.
+     * @param row - row of the cells
+     * @return colors of the locked tiles in the row, which must not be modified
+     */
+    Color[] getCellRow(int row) {
+        return cellRows[row];
+    }
+
+    /**
+     * @param row - row of the cells
+     * @return outline colors of the row, which must not be modified
+     */
+    Color[] getOutlineRow(int row) {
+        return outlineRows[row];
+    }
+
+    Color[][] getCellRows() {
+        return cellRows;
+    }
+
+    Color[][] getOutlineRows() {
+        return outlineRows;
+    }
+
+    /**
+     * @param arr - small array to search
+     * @param value - value to look for
+     * @return true if the array holds the value
+     */
+    private static boolean contains(int[] arr, int value) {
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,8 +10,9 @@ import java.awt.*;
  * Created by David Kramer on 2/6/2016.
  */
 public class GridTile extends Tile {
-    private static final Color HIGHLIGHT_COLOR = Color.decode("#212121");
+    static final Color HIGHLIGHT_COLOR = Color.decode("#212121");
 
+    private Grid grid;              // grid that owns this tile, if any
     private Tile partialShapeTile;  // tile that belongs to part of a tetromino
     private boolean isFilled;       // does this grid tile contain the partial tile?
     private boolean isHighlighted;  // should this tile, be drawn with a highlight?
@@ -24,11 +25,49 @@ public class GridTile extends Tile {
      */
     public GridTile(int col, int row) {
         setBounds(col * WIDTH, row * HEIGHT, WIDTH, HEIGHT);
-        location = new Point(col, row);
+        location = Coord.of(col, row);
         isFilled = false;
         color = Color.BLACK;    // this is intentional, as it will be changed later in PlayState animateGrid()
     }
 
+    /**
+     * Constructs a new GridTile that belongs to the specified grid. The grid
+     * is kept up to date whenever this tile is filled or cleared.
+     * @param grid - Grid that owns this GridTile
+     * @param col - GridLocation on the columns
+     * @param row - GridLocation on the rows
+     */
+    public GridTile(Grid grid, int col, int row) {
+        this(col, row);
+        this.grid = grid;
+    }
+
+    /**
+     * Renders this individual tile to the screen, using only the state
+     * held by the snapshot of its grid. The locked tiles of a hard drop
+     * that is sliding into place, are drawn by the grid instead.
+     * @param g2d - Graphics context to draw to
+     * @param snapshot - latest published snapshot of the grid
+     */
+    public void render(Graphics2D g2d, GridSnapshot snapshot) {
+        int index = snapshot.getIndex(getCol(), getRow());
+        Color color = snapshot.getDrawnColor(index, snapshot.getClearStep(System.nanoTime()));
+        boolean filled = color != null;
+        if (filled && !snapshot.isSliding(index)) {     // covers the outline completely
+            TileSprites.draw(g2d, TileSprites.KIND_FILLED, color,
+                             getDrawX(), getDrawY(), WIDTH, HEIGHT);
+        } else if (!filled && snapshot.isGhost(index)) {
+            TileSprites.draw(g2d, TileSprites.KIND_GHOST, snapshot.getOutlineColor(index),
+                             getDrawX(), getDrawY(), WIDTH, HEIGHT);
+        } else {    // a plain outline is cheaper to draw as lines, than as a mostly empty image
+            g2d.setColor(snapshot.getOutlineColor(index));
+            g2d.drawRect(getDrawX(), getDrawY(), WIDTH, HEIGHT);
+        }
+        if (SHOW_DEBUG) {
+            drawDebug(g2d, index, filled);
+        }
+    }
+
     /**
      * Renders this individual tile to the screen.
      * @param g2d - Graphics context to draw to
@@ -53,8 +92,18 @@ public class GridTile extends Tile {
      * @param g2d
      */
     protected void drawDebug(Graphics2D g2d) {
-        String s = "" + getNum();
-        if (isFilled) {
+        drawDebug(g2d, getNum(), isFilled);
+    }
+
+    /**
+     * Draws the tile number and filled indicator, inside of the tile.
+     * @param g2d
+     * @param num - tile number
+     * @param filled - is the tile filled
+     */
+    private void drawDebug(Graphics2D g2d, int num, boolean filled) {
+        String s = "" + num;
+        if (filled) {
             s += "*";
         }
         g2d.setColor(Color.DARK_GRAY);
@@ -65,7 +114,8 @@ public class GridTile extends Tile {
      * @return the grid tile number based on its col and row.
      */
     protected int getNum() {
-        return (Grid.COL_COUNT * getRow()) + getCol();
+        int colCount = (grid != null) ? grid.getColCount() : Grid.DEFAULT_COL_COUNT;
+        return (colCount * getRow()) + getCol();
     }
 
     /**
@@ -100,8 +150,10 @@ public class GridTile extends Tile {
      * Clears out the partial shape tile of this GridTile.
      */
     public void clear() {
+        boolean wasFilled = isFilled;
         partialShapeTile = null;
         isFilled = false;
+        updateGrid(wasFilled);
     }
 
     /**
@@ -119,13 +171,46 @@ public class GridTile extends Tile {
      *          occupy this GridTile
      */
     public void setPartialShapeTile(Tile t) {
+        boolean wasFilled = isFilled;
         if (t != null) {
             this.partialShapeTile = t;
-            t.setGridLocation(getGridLocation());
+            t.setCoord(location);
             isFilled = true;
         } else {
+            partialShapeTile = null;
             isFilled = false;
         }
+        updateGrid(wasFilled);
+    }
+
+    /**
+     * Fills this GridTile with a tile of the specified color. If it is
+     * already filled, its partial tile is just recolored, so no new
+     * Tile is created.
+     * @param color - color of the tile to fill with
+     */
+    public void fill(Color color) {
+        if (isFilled && partialShapeTile != null) {
+            partialShapeTile.setColor(color);
+            if (grid != null) {
+                grid.markChanged(getRow());
+            }
+        } else {
+            setPartialShapeTile(new Tile(color, false));
+        }
+    }
+
+    /**
+     * Lets the owning grid know when the filled status of this tile
+     * has changed, or when it has been filled with a different tile.
+     * @param wasFilled - filled status before the change
+     */
+    private void updateGrid(boolean wasFilled) {
+        if (grid != null && wasFilled != isFilled) {
+            grid.updateCell(getCol(), getRow(), isFilled);
+        } else if (grid != null && isFilled) {  // swapped for a tile that may be another color
+            grid.markChanged(getRow());
+        }
     }
 
     /**
@@ -135,6 +220,17 @@ public class GridTile extends Tile {
         return isFilled;
     }
 
+    /**
+     * Sets the outline color of this GridTile.
+     * @param color - new outline color
+     */
+    public void setColor(Color color) {
+        super.setColor(color);
+        if (grid != null) {
+            grid.markChanged(getRow());
+        }
+    }
+
     /**
      * @return the highlight flag of this GridTile
      */
@@ -1,5 +1,7 @@
 package shapes.Tetrominoes;
 
+import shapes.Grid;
+
 import java.awt.*;
 
 /**
@@ -8,34 +10,49 @@ import java.awt.*;
  */
 public final class Line extends Tetromino {
 
-    public Line() {
-        super(Color.decode("#2AB1B5")); // cyan
+    static final Color COLOR = Color.decode("#2AB1B5");  // cyan
+
+    private static final TileMap NORTH = TileMap.fromArray(new int[][] {
+            {0, 0, 1, 0,},
+            {0, 0, 2, 0,},
+            {0, 0, 1, 0,},
+            {0, 0, 1, 0,},
+    });
+    private static final TileMap EAST = TileMap.fromArray(new int[][] {
+            {0, 0, 0, 0,},
+            {1, 1, 2, 1,},
+            {0, 0, 0, 0,},
+            {0, 0, 0, 0,},
+    });
+    private static final TileMap SOUTH = TileMap.fromArray(new int[][] {
+            {0, 0, 1, 0,},
+            {0, 0, 1, 0,},
+            {0, 0, 2, 0,},
+            {0, 0, 1, 0,},
+    });
+    private static final TileMap WEST = TileMap.fromArray(new int[][] {
+            {0, 0, 0, 0,},
+            {1, 2, 1, 1,},
+            {0, 0, 0, 0,},
+            {0, 0, 0, 0,},
+    });
+
+    /**
+     * Rotation tables shared by every Line, indexed by orientation.
+     */
+    static final TileMap[] TILE_MAPS = { NORTH, EAST, SOUTH, WEST };
+
+
+
+    public Line(Grid grid) {
+        super(grid, COLOR);
+    }
+
+    public int getType() {
+        return Tetrominoes.LINE;
     }
 
-    public void createTileMaps() {
-        northTiles = TileMap.fromArray(new int[][] {
-                {0, 0, 1, 0,},
-                {0, 0, 2, 0,},
-                {0, 0, 1, 0,},
-                {0, 0, 1, 0,},
-        });
-        eastTiles = TileMap.fromArray(new int[][] {
-                {0, 0, 0, 0,},
-                {1, 1, 2, 1,},
-                {0, 0, 0, 0,},
-                {0, 0, 0, 0,},
-        });
-        southTiles = TileMap.fromArray(new int[][] {
-                {0, 0, 1, 0,},
-                {0, 0, 1, 0,},
-                {0, 0, 2, 0,},
-                {0, 0, 1, 0,},
-        });
-        westTiles = TileMap.fromArray(new int[][] {
-                {0, 0, 0, 0,},
-                {1, 2, 1, 1,},
-                {0, 0, 0, 0,},
-                {0, 0, 0, 0,},
-        });
+    protected TileMap[] getTileMaps() {
+        return TILE_MAPS;
     }
 }
@@ -0,0 +1,31 @@
+package shapes.Tetrominoes;
+
+import shapes.Grid;
+
+/**
+ * A piece of a loaded PieceSet. Unlike the built-in Tetrominoes, a Piece
+ * doesn't have its own class, and takes its shape and color from its set,
+ * so any set can be played without adding any code.
+ */
+public class Piece extends Tetromino {
+
+    /**
+     * Constructs a new piece.
+     * @param grid - grid that the piece moves around in
+     * @param pieceSet - set that the type belongs to
+     * @param type - type of piece, from 1 to pieceSet.getCount()
+     */
+    public Piece(Grid grid, PieceSet pieceSet, int type) {
+        super(grid, pieceSet, type);
+    }
+
+    @Override
+    protected TileMap[] getTileMaps() {
+        return tileMaps;
+    }
+
+    @Override
+    public int getType() {
+        return PieceState.getType(state);
+    }
+}
@@ -0,0 +1,419 @@
+package shapes.Tetrominoes;
+
+import shapes.Tile;
+import utils.Logger;
+import utils.MessageLevel;
+
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of pieces that a game can be played with, along with their shared
+ * rotation tables. Every piece in a set is made up of the same number of
+ * tiles, which is 4 for the standard Tetrominoes, but a set could just as
+ * well hold pentominoes or monominoes. Sets are validated and compiled into
+ * rotation tables once, when they are loaded, so that creating and rotating
+ * pieces afterwards is only a table lookup. Piece types of a set are numbered
+ * from 1 to getCount().
+ *
+ * Sets can be loaded from a text definition, laid out like this:
+ *
+ *   # comment lines start with a hash
+ *   cells 4
+ *   piece J #AF7AC4
+ *   .X..
+ *   .X..
+ *   XP..
+ *   ....
+ *
+ *   ....
+ *   XXP.
+ *   ..X.
+ *   ....
+ *
+ * Each piece lists 1, 2 or 4 rotations, separated by blank lines, which
+ * are repeated to fill out all 4 orientations. Adding "auto" to the end of
+ * the piece line, generates all 4 rotations from the first one instead.
+ * In a rotation, '.' is empty, 'X' is a regular tile and 'P' is the pivot
+ * tile, and the rows are laid out the same as a TileMap.fromArray array.
+ * The sets in res/pieces can be loaded by name, from the classpath.
+ */
+public final class PieceSet {
+    public static final PieceSet STANDARD = createStandard();
+
+    private static final int ORIENTATION_COUNT = Tetromino.ORIENTATION_WEST + 1;
+    private static final String RESOURCE_DIR = "/pieces/";    // where the sets in res/pieces are on the classpath
+
+    private final String name;
+    private final int cellCount;        // tiles in every piece of this set
+    private final String[] pieceNames;  // indexed by type, where index 0 is unused
+    private final Color[] colors;       // indexed by type, where index 0 is unused
+    private final TileMap[][] tileMaps; // indexed by [type][orientation], where type 0 is unused
+
+
+
+    private PieceSet(String name, int cellCount, List<String> pieceNames, List<Color> colors,
+                     List<TileMap[]> tileMaps) {
+        this.name = name;
+        this.cellCount = cellCount;
+        int count = pieceNames.size();
+        this.pieceNames = new String[count + 1];
+        this.colors = new Color[count + 1];
+        this.tileMaps = new TileMap[count + 1][];
+        for (int i = 0; i < count; i++) {
+            this.pieceNames[i + 1] = pieceNames.get(i);
+            this.colors[i + 1] = colors.get(i);
+            this.tileMaps[i + 1] = tileMaps.get(i);
+        }
+    }
+
+    /**
+     * @return the standard set of 7 Tetrominoes, built from the Tetromino classes
+     */
+    private static PieceSet createStandard() {
+        List<String> names = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        List<TileMap[]> tileMaps = new ArrayList<>();
+        String[] typeNames = { "J", "L", "T", "Z", "S", "Line", "Square" };
+        Color[] typeColors = { J.COLOR, L.COLOR, T.COLOR, Z.COLOR, S.COLOR, Line.COLOR, Square.COLOR };
+        for (int type = 1; type <= Tetrominoes.MAX_COUNT; type++) {
+            names.add(typeNames[type - 1]);
+            colors.add(typeColors[type - 1]);
+            tileMaps.add(Tetrominoes.getTileMaps(type));
+        }
+        return new PieceSet("standard", TileMap.TILE_COUNT, names, colors, tileMaps);
+    }
+
+    /**
+     * Loads a piece set from a text definition file.
+     * @param file - file to load
+     * @return the loaded piece set
+     * @throws IOException if the file can't be read
+     * @throws - IllegalArgumentException if the definition is invalid
+     */
+    public static PieceSet load(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return load(file.getName(), reader);
+        }
+    }
+
+    /**
+     * Loads one of the piece sets in res/pieces, from the classpath.
+     * @param name - name of the set, which is its file name without ".txt"
+     * @return the loaded piece set
+     * @throws IOException if the set isn't on the classpath, or can't be read
+     * @throws - IllegalArgumentException if the definition is invalid
+     */
+    public static PieceSet loadResource(String name) throws IOException {
+        String path = RESOURCE_DIR + name + ".txt";
+        InputStream in = PieceSet.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new FileNotFoundException("Piece set " + path + " isn't on the classpath");
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(name, reader);
+        }
+    }
+
+    /**
+     * Loads a piece set from a text definition.
+     * @param name - name of the set
+     * @param reader - reader of the text definition
+     * @return the loaded piece set
+     * @throws IOException if the definition can't be read
+     * @throws - IllegalArgumentException if the definition is invalid
+     */
+    public static PieceSet load(String name, Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            lines.add(line);
+        }
+        PieceSet set = parse(name, lines);
+        String msg = String.format("Piece set %s loaded with %d pieces of %d tiles",
+                                   name, set.getCount(), set.getCellCount());
+        Logger.log(MessageLevel.INFO, msg);
+        return set;
+    }
+
+    /**
+     * Parses and compiles the lines of a text definition.
+     * @param name - name of the set
+     * @param lines - lines of the text definition
+     * @return the compiled piece set
+     * @throws - IllegalArgumentException if the definition is invalid
+     */
+    private static PieceSet parse(String name, List<String> lines) {
+        int cellCount = -1;
+        List<String> names = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        List<TileMap[]> tileMaps = new ArrayList<>();
+        List<int[][]> rotations = new ArrayList<>();
+        List<String> rows = new ArrayList<>();
+        boolean isAuto = false;
+
+        for (int i = 0; i <= lines.size(); i++) {
+            String line = (i < lines.size()) ? lines.get(i).trim() : "";
+            boolean isLast = i == lines.size();
+            if (line.startsWith("#")) {
+                continue;
+            }
+            if (line.isEmpty() || line.startsWith("piece") || isLast) {
+                if (!rows.isEmpty()) {     // finished a rotation
+                    rotations.add(toArray(rows, i));
+                    rows.clear();
+                }
+                if ((line.startsWith("piece") || isLast) && !names.isEmpty()) {  // finished a piece
+                    tileMaps.add(compile(rotations, cellCount, isAuto, names.get(names.size() - 1)));
+                    rotations.clear();
+                }
+                if (line.startsWith("piece")) {
+                    if (cellCount <= 0) {
+                        throw error("'cells' must be defined before the first piece", i);
+                    }
+                    String[] parts = line.split("\\s+");
+                    if (parts.length < 3) {
+                        throw error("expected: piece <name> <#RRGGBB> [auto]", i);
+                    }
+                    names.add(parts[1]);
+                    colors.add(parseColor(parts[2], i));
+                    isAuto = parts.length > 3 && parts[3].equals("auto");
+                }
+            } else if (line.startsWith("cells")) {
+                String[] parts = line.split("\\s+");
+                try {
+                    cellCount = Integer.parseInt(parts[1]);
+                } catch (RuntimeException e) {
+                    throw error("expected: cells <count>", i);
+                }
+                if (cellCount < 1 || cellCount > TileMap.MAX_SIZE * TileMap.MAX_SIZE) {
+                    throw error("invalid cell count " + cellCount, i);
+                }
+            } else if (names.isEmpty()) {
+                throw error("tile map rows must belong to a piece", i);
+            } else {
+                rows.add(line);
+            }
+        }
+        if (names.isEmpty()) {
+            throw error("no pieces defined", lines.size());
+        }
+        if (names.size() > PieceState.MAX_TYPE) {
+            throw error("too many pieces, the limit is " + PieceState.MAX_TYPE, lines.size());
+        }
+        return new PieceSet(name, cellCount, names, colors, tileMaps);
+    }
+
+    /**
+     * @param rows - rows of a single rotation
+     * @param lineNum - line number after the rotation, for error messages
+     * @return tile map array of the rotation
+     */
+    private static int[][] toArray(List<String> rows, int lineNum) {
+        int size = rows.size();
+        int[][] arr = new int[size][size];
+        for (int col = 0; col < size; col++) {
+            String row = rows.get(col);
+            if (row.length() != size) {
+                throw error("rotation must be square, " + size + " x " + size, lineNum - size + col);
+            }
+            for (int i = 0; i < size; i++) {
+                char c = row.charAt(i);
+                if (c == 'X') {
+                    arr[col][i] = Tile.REGULAR;
+                } else if (c == 'P') {
+                    arr[col][i] = Tile.PIVOT;
+                } else if (c == '.') {
+                    arr[col][i] = Tile.EMPTY;
+                } else {
+                    throw error("invalid tile '" + c + "'", lineNum - size + col);
+                }
+            }
+        }
+        return arr;
+    }
+
+    /**
+     * Compiles the rotations of a piece into a validated rotation table.
+     * @param rotations - tile map arrays of the rotations that were defined
+     * @param cellCount - tiles in the piece
+     * @param isAuto - should all 4 rotations be generated from the first
+     * @param pieceName - name of the piece, for error messages
+     * @return TileMaps indexed by orientation
+     */
+    private static TileMap[] compile(List<int[][]> rotations, int cellCount, boolean isAuto, String pieceName) {
+        int count = rotations.size();
+        if (count == 0 || (!isAuto && count != 1 && count != 2 && count != ORIENTATION_COUNT)) {
+            throw new IllegalArgumentException("Piece " + pieceName + " must define 1, 2 or 4 rotations");
+        }
+        TileMap[] maps = new TileMap[ORIENTATION_COUNT];
+        int[][] arr = rotations.get(0);
+        for (int i = 0; i < ORIENTATION_COUNT; i++) {
+            if (isAuto) {
+                maps[i] = TileMap.fromArray(arr, cellCount);
+                arr = rotate(arr);
+            } else if (i < count) {
+                maps[i] = TileMap.fromArray(rotations.get(i), cellCount);
+            } else {
+                maps[i] = maps[i % count];
+            }
+        }
+        return maps;
+    }
+
+    /**
+     * Rotates a tile map array to the next orientation, around its pivot
+     * tile. In the array, an offset of (o, n) from the pivot becomes (-n, o),
+     * which is a clockwise turn of the shape when it is in the grid. The
+     * result is shifted back into the top left of an array of the same size.
+     * @param arr - tile map array to rotate
+     * @return a new, rotated tile map array
+     */
+    private static int[][] rotate(int[][] arr) {
+        int size = arr.length;
+        int pivotOuter = 0;
+        int pivotInner = 0;
+        for (int o = 0; o < size; o++) {
+            for (int n = 0; n < size; n++) {
+                if (arr[o][n] == Tile.PIVOT) {
+                    pivotOuter = o;
+                    pivotInner = n;
+                }
+            }
+        }
+        int minOuter = Integer.MAX_VALUE;
+        int minInner = Integer.MAX_VALUE;
+        for (int o = 0; o < size; o++) {
+            for (int n = 0; n < size; n++) {
+                if (arr[o][n] != Tile.EMPTY) {
+                    minOuter = Math.min(minOuter, -(n - pivotInner));
+                    minInner = Math.min(minInner, o - pivotOuter);
+                }
+            }
+        }
+        int[][] rotated = new int[size][size];
+        for (int o = 0; o < size; o++) {
+            for (int n = 0; n < size; n++) {
+                if (arr[o][n] != Tile.EMPTY) {
+                    rotated[-(n - pivotInner) - minOuter][(o - pivotOuter) - minInner] = arr[o][n];
+                }
+            }
+        }
+        return rotated;
+    }
+
+    /**
+     * @param s - color in #RRGGBB form
+     * @param lineNum - line number, for error messages
+     * @return the color
+     */
+    private static Color parseColor(String s, int lineNum) {
+        try {
+            return Color.decode(s);
+        } catch (NumberFormatException e) {
+            throw error("invalid color " + s, lineNum);
+        }
+    }
+
+    /**
+     * @param msg - what was wrong
+     * @param lineNum - 0 based line number
+     * @return exception to throw, for an invalid definition
+     */
+    private static IllegalArgumentException error(String msg, int lineNum) {
+        String error = "Invalid piece set, line " + (lineNum + 1) + ": " + msg;
+        Logger.log(MessageLevel.ERROR, error);
+        return new IllegalArgumentException(error);
+    }
+
+    /**
+     * @return name of this set
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of piece types in this set
+     */
+    public int getCount() {
+        return pieceNames.length - 1;
+    }
+
+    /**
+     * @return number of tiles in every piece of this set
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return number of cols spanned by the widest shape of this set, in any orientation
+     */
+    public int getMaxWidth() {
+        int width = 0;
+        for (int type = 1; type <= getCount(); type++) {
+            for (TileMap tileMap : tileMaps[type]) {
+                width = Math.max(width, tileMap.getWidth());
+            }
+        }
+        return width;
+    }
+
+    /**
+     * @return number of rows spanned by the tallest shape of this set, in any orientation
+     */
+    public int getMaxHeight() {
+        int height = 0;
+        for (int type = 1; type <= getCount(); type++) {
+            for (TileMap tileMap : tileMaps[type]) {
+                height = Math.max(height, tileMap.getHeight());
+            }
+        }
+        return height;
+    }
+
+    /**
+     * @param type - piece type, from 1 to getCount()
+     * @return name of the piece type
+     */
+    public String getPieceName(int type) {
+        return pieceNames[type];
+    }
+
+    /**
+     * @param type - piece type, from 1 to getCount()
+     * @return color of the piece type
+     */
+    public Color getColor(int type) {
+        return colors[type];
+    }
+
+    /**
+     * @param type - piece type, from 1 to getCount()
+     * @return shared rotation table of the piece type, indexed by orientation
+     */
+    public TileMap[] getTileMaps(int type) {
+        return tileMaps[type];
+    }
+
+    /**
+     * @param type - piece type, from 1 to getCount()
+     * @param orientation - one of the orientation constants in Tetromino
+     * @return shape of the piece type, in the orientation
+     */
+    public TileMap getTileMap(int type, int orientation) {
+        return tileMaps[type][orientation];
+    }
+}
@@ -0,0 +1,263 @@
+package shapes.Tetrominoes;
+
+import shapes.Grid;
+
+/**
+ * Packs everything about an active piece, its type, orientation and pivot
+ * location, into a single int, along with functions that move, rotate and
+ * fit test those values. Search and simulation code can copy and test piece
+ * states as plain ints, without allocating any Tetromino or Tile objects.
+ * A Tetromino is just a view over one of these values, for drawing.
+ * Functions that need the shape of a piece take the PieceSet that its type
+ * belongs to, or use the standard set when none is given.
+ *
+ * Layout, from the low bits up:
+ *   row          14 bits, stored plus BIAS
+ *   col           8 bits, stored plus BIAS
+ *   orientation   2 bits
+ *   type          6 bits
+ */
+public final class PieceState {
+    private static final int ROW_BITS = 14;
+    private static final int COL_BITS = 8;
+    private static final int ORIENTATION_BITS = 2;
+    private static final int TYPE_BITS = 6;
+
+    private static final int COL_SHIFT = ROW_BITS;
+    private static final int ORIENTATION_SHIFT = COL_SHIFT + COL_BITS;
+    private static final int TYPE_SHIFT = ORIENTATION_SHIFT + ORIENTATION_BITS;
+
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+    private static final int COL_MASK = (1 << COL_BITS) - 1;
+    private static final int ORIENTATION_MASK = (1 << ORIENTATION_BITS) - 1;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /**
+     * Largest piece type that can be packed, which limits how many pieces
+     * a PieceSet can hold.
+     */
+    public static final int MAX_TYPE = TYPE_MASK;
+
+    /**
+     * Offset that cols and rows are stored with, so that a pivot which sits
+     * above or to the left of the grid is still stored as a positive field.
+     */
+    private static final int BIAS = 1 << 6;
+
+    private static final int MIN_COL = -BIAS;
+    private static final int MAX_COL = COL_MASK - BIAS;
+    private static final int MIN_ROW = -BIAS;
+    private static final int MAX_ROW = ROW_MASK - BIAS;
+
+
+
+    private PieceState() {}     // prevent instantiation
+
+    /**
+     * Packs a piece into a single value.
+     * @param type - type of piece, from 1 to MAX_TYPE
+     * @param orientation - one of the orientation constants in Tetromino
+     * @param col - col of the pivot tile
+     * @param row - row of the pivot tile
+     * @return packed piece state
+     * @throws - IllegalArgumentException if any of the values can't be packed
+     */
+    public static int of(int type, int orientation, int col, int row) {
+        if (type < 1 || type > MAX_TYPE
+                || orientation < Tetromino.ORIENTATION_NORTH || orientation > Tetromino.ORIENTATION_WEST
+                || col < MIN_COL || col > MAX_COL || row < MIN_ROW || row > MAX_ROW) {
+            throw new IllegalArgumentException("Invalid piece state: type " + type + ", orientation " +
+                                               orientation + ", at (" + col + ", " + row + ")");
+        }
+        return (type << TYPE_SHIFT) | (orientation << ORIENTATION_SHIFT)
+                | ((col + BIAS) << COL_SHIFT) | (row + BIAS);
+    }
+
+    /**
+     * @param piece - packed piece state
+     * @return type of the piece
+     */
+    public static int getType(int piece) {
+        return (piece >>> TYPE_SHIFT) & TYPE_MASK;
+    }
+
+    /**
+     * @param piece - packed piece state
+     * @return orientation of the piece
+     */
+    public static int getOrientation(int piece) {
+        return (piece >>> ORIENTATION_SHIFT) & ORIENTATION_MASK;
+    }
+
+    /**
+     * @param piece - packed piece state
+     * @return col of the pivot tile
+     */
+    public static int getCol(int piece) {
+        return ((piece >>> COL_SHIFT) & COL_MASK) - BIAS;
+    }
+
+    /**
+     * @param piece - packed piece state
+     * @return row of the pivot tile
+     */
+    public static int getRow(int piece) {
+        return (piece & ROW_MASK) - BIAS;
+    }
+
+    /**
+     * @param piece - packed piece state, of the standard set
+     * @return shape of the piece in its current orientation
+     */
+    public static TileMap getTileMap(int piece) {
+        return getTileMap(PieceSet.STANDARD, piece);
+    }
+
+    /**
+     * @param set - piece set that the type of the piece belongs to
+     * @param piece - packed piece state
+     * @return shape of the piece in its current orientation
+     */
+    public static TileMap getTileMap(PieceSet set, int piece) {
+        return set.getTileMap(getType(piece), getOrientation(piece));
+    }
+
+    /**
+     * Moves a piece without checking if it fits. The pivot must stay within
+     * the grid, or within BitBoard.PAD cells of it.
+     * @param piece - packed piece state
+     * @param colDX - cols to move
+     * @param rowDX - rows to move
+     * @return the moved piece state
+     */
+    public static int move(int piece, int colDX, int rowDX) {
+        return piece + (colDX << COL_SHIFT) + rowDX;
+    }
+
+    /**
+     * Moves a piece to a new pivot location, without checking if it fits.
+     * @param piece - packed piece state
+     * @param col - col of the pivot tile
+     * @param row - row of the pivot tile
+     * @return the moved piece state
+     */
+    public static int moveTo(int piece, int col, int row) {
+        return of(getType(piece), getOrientation(piece), col, row);
+    }
+
+    /**
+     * Rotates a piece clockwise, without checking if it fits. After the last
+     * orientation, it starts back at the first.
+     * @param piece - packed piece state
+     * @return the rotated piece state
+     */
+    public static int rotate(int piece) {
+        int orientation = (getOrientation(piece) + 1) & ORIENTATION_MASK;
+        return (piece & ~(ORIENTATION_MASK << ORIENTATION_SHIFT)) | (orientation << ORIENTATION_SHIFT);
+    }
+
+    /**
+     * @param grid - grid to check against
+     * @param piece - packed piece state, of the standard set
+     * @return true if every tile of the piece fits in the grid
+     */
+    public static boolean fits(Grid grid, int piece) {
+        return fits(grid, PieceSet.STANDARD, piece);
+    }
+
+    /**
+     * @param grid - grid to check against
+     * @param set - piece set that the type of the piece belongs to
+     * @param piece - packed piece state
+     * @return true if every tile of the piece fits in the grid
+     */
+    public static boolean fits(Grid grid, PieceSet set, int piece) {
+        return grid.checkFit(getTileMap(set, piece), getCol(piece), getRow(piece));
+    }
+
+    /**
+     * Moves a piece, only if it still fits after moving.
+     * @param grid - grid to check against
+     * @param piece - packed piece state, of the standard set
+     * @param colDX - cols to move
+     * @param rowDX - rows to move
+     * @return the moved piece state, or the same piece state if it didn't fit
+     */
+    public static int tryMove(Grid grid, int piece, int colDX, int rowDX) {
+        return tryMove(grid, PieceSet.STANDARD, piece, colDX, rowDX);
+    }
+
+    /**
+     * Moves a piece, only if it still fits after moving.
+     * @param grid - grid to check against
+     * @param set - piece set that the type of the piece belongs to
+     * @param piece - packed piece state
+     * @param colDX - cols to move
+     * @param rowDX - rows to move
+     * @return the moved piece state, or the same piece state if it didn't fit
+     */
+    public static int tryMove(Grid grid, PieceSet set, int piece, int colDX, int rowDX) {
+        int moved = move(piece, colDX, rowDX);
+        return fits(grid, set, moved) ? moved : piece;
+    }
+
+    /**
+     * Rotates a piece, only if it still fits after rotating.
+     * @param grid - grid to check against
+     * @param piece - packed piece state, of the standard set
+     * @return the rotated piece state, or the same piece state if it didn't fit
+     */
+    public static int tryRotate(Grid grid, int piece) {
+        return tryRotate(grid, PieceSet.STANDARD, piece);
+    }
+
+    /**
+     * Rotates a piece, only if it still fits after rotating.
+     * @param grid - grid to check against
+     * @param set - piece set that the type of the piece belongs to
+     * @param piece - packed piece state
+     * @return the rotated piece state, or the same piece state if it didn't fit
+     */
+    public static int tryRotate(Grid grid, PieceSet set, int piece) {
+        int rotated = rotate(piece);
+        return fits(grid, set, rotated) ? rotated : piece;
+    }
+
+    /**
+     * Drops a piece straight down, to where it would land.
+     * @param grid - grid to drop in
+     * @param piece - packed piece state, of the standard set
+     * @return the landed piece state, or the same piece state if it can't fall
+     */
+    public static int drop(Grid grid, int piece) {
+        return drop(grid, PieceSet.STANDARD, piece);
+    }
+
+    /**
+     * Drops a piece straight down, to where it would land.
+     * @param grid - grid to drop in
+     * @param set - piece set that the type of the piece belongs to
+     * @param piece - packed piece state
+     * @return the landed piece state, or the same piece state if it can't fall
+     */
+    public static int drop(Grid grid, PieceSet set, int piece) {
+        int row = getRow(piece);
+        int rows = grid.getDropRow(getTileMap(set, piece), getCol(piece), row) - row;
+        if (rows > 0) {
+            int dropped = move(piece, 0, rows);
+            if (fits(grid, set, dropped)) {
+                return dropped;
+            }
+        }
+        return piece;
+    }
+
+    /**
+     * @param piece - packed piece state
+     * @return a readable description of the piece state, for debugging
+     */
+    public static String toString(int piece) {
+        return "Piece[type " + getType(piece) + ", orientation " + getOrientation(piece) +
+                ", at (" + getCol(piece) + ", " + getRow(piece) + ")]";
+    }
+}
@@ -1,5 +1,7 @@
 package shapes.Tetrominoes;
 
+import shapes.Grid;
+
 import java.awt.*;
 
 /**
@@ -8,25 +10,37 @@ import java.awt.*;
  */
 public final class S extends Tetromino {
 
-    public S() {
-        super(Color.decode("#E74C3C"));  // red
+    static final Color COLOR = Color.decode("#E74C3C");  // red
+
+    private static final TileMap NORTH = TileMap.fromArray(new int[][] {
+            {1, 0, 0, 0,},
+            {1, 2, 0, 0,},
+            {0, 1, 0, 0,},
+            {0, 0, 0, 0,},
+    });
+    private static final TileMap EAST = TileMap.fromArray(new int[][] {
+            {0, 0, 0, 0,},
+            {0, 2, 1, 0,},
+            {1, 1, 0, 0,},
+            {0, 0, 0, 0,},
+    });
+
+    /**
+     * Rotation tables shared by every S, indexed by orientation.
+     */
+    static final TileMap[] TILE_MAPS = { NORTH, EAST, NORTH, EAST };
+
+
+
+    public S(Grid grid) {
+        super(grid, COLOR);
+    }
+
+    public int getType() {
+        return Tetrominoes.S;
     }
 
-    public void createTileMaps() {
-        northTiles = TileMap.fromArray(new int[][] {
-                {1, 0, 0, 0,},
-                {1, 2, 0, 0,},
-                {0, 1, 0, 0,},
-                {0, 0, 0, 0,},
-        });
-        eastTiles = TileMap.fromArray(new int[][] {
-                {0, 0, 0, 0,},
-                {0, 2, 1, 0,},
-                {1, 1, 0, 0,},
-                {0, 0, 0, 0,},
-        });
-
-        southTiles = northTiles;
-        westTiles = eastTiles;
+    protected TileMap[] getTileMaps() {
+        return TILE_MAPS;
     }
 }
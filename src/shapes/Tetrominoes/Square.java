@@ -1,5 +1,7 @@
 package shapes.Tetrominoes;
 
+import shapes.Grid;
+
 import java.awt.*;
 
 /**
@@ -8,21 +10,31 @@ import java.awt.*;
  */
 public final class Square extends Tetromino {
 
-    public Square() {
-        super(Color.decode("#F1C40F")); // yellow
+    static final Color COLOR = Color.decode("#F1C40F");  // yellow
+
+    private static final TileMap NORTH = TileMap.fromArray(new int[][] {
+            {0, 1, 2, 0,},
+            {0, 1, 1, 0,},
+            {0, 0, 0, 0,},
+            {0, 0, 0, 0,},
+    });
+
+    /**
+     * Rotation tables shared by every Square, indexed by orientation.
+     */
+    static final TileMap[] TILE_MAPS = { NORTH, NORTH, NORTH, NORTH };  // square doesn't rotate
+
+
+
+    public Square(Grid grid) {
+        super(grid, COLOR);
+    }
+
+    public int getType() {
+        return Tetrominoes.SQUARE;
     }
 
-    public void createTileMaps() {
-        northTiles = TileMap.fromArray(new int[][] {
-                {0, 1, 2, 0,},
-                {0, 1, 1, 0,},
-                {0, 0, 0, 0,},
-                {0, 0, 0, 0,},
-        });
-
-        // square doesn't rotate
-        eastTiles = northTiles;
-        southTiles = northTiles;
-        westTiles = northTiles;
+    protected TileMap[] getTileMaps() {
+        return TILE_MAPS;
     }
 }
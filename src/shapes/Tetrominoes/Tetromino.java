@@ -11,12 +11,13 @@ import java.awt.*;
 
 /**
  * Base class for all Tetrominoes. This class provides all the logic for
- * navigating Tetrominoes around inside of a grid. Before any objects can
- * be created, this class must be instantiated with a Grid object. ALl
- * subclasses need only to overwrite the createTileMaps() method which
- * defines the positioning of their tiles. They also need to supply their
- * own color for the constructor, so that this Tetromino can initialize
- * everything with the correct color appearance.
+ * navigating Tetrominoes around inside of a grid. Every Tetromino is
+ * constructed with the Grid that it belongs to. ALl subclasses need only
+ * to overwrite the getTileMaps() method which returns the positioning of
+ * their tiles, in every orientation. They also need to supply their own
+ * color for the constructor, so that this Tetromino can initialize
+ * everything with the correct color appearance. Pieces of a loaded
+ * PieceSet don't need their own class, and are created as a Piece instead.
  * Created by David Kramer on 2/6/2016.
  */
 public abstract class Tetromino {
@@ -31,178 +32,121 @@ public abstract class Tetromino {
     public static final int ORIENTATION_SOUTH   = 2;
     public static final int ORIENTATION_WEST    = 3;
 
-    protected static boolean initialized = false;
-    protected static Grid grid;
-
+    protected final Grid grid;      // grid that this Tetromino moves around in
+    protected final PieceSet pieceSet;  // set that the type of this Tetromino belongs to
     protected Color color;
-    protected int curOrientation;
+    protected int state;            // packed PieceState, which the tiles below are only a view of
 
     /**
-     * To be defined by all subclasses, that define the makeup of Tetromino tiles.
+     * Makeup of the Tetromino tiles, indexed by orientation. This is shared
+     * by every instance of the same type, and must never be modified.
      */
-    protected TileMap northTiles;
-    protected TileMap eastTiles;
-    protected TileMap southTiles;
-    protected TileMap westTiles;
+    protected TileMap[] tileMaps;
 
     protected Tile pivotTile;       // for determining positioning of all other activeTiles, in relation to grid
     protected Tile[] activeTiles;   // currently active tiles that the tetromino is made up of
-    protected Tile[] tempTiles;     // placeholder activeTiles for checking movement / rotations
-
 
 
-    public Tetromino() {}   // default constructor
 
-    public Tetromino(Color color) {
-        init(color);
+    public Tetromino(Grid grid, Color color) {
+        checkGrid(grid);
+        this.grid = grid;
+        this.pieceSet = PieceSet.STANDARD;
+        init(color, getTileMaps(), getType());
     }
 
     /**
-     * Method to be implemented by all subclasses that creates all the
-     * TileMaps that make up a Tetromino. At most, a Tetromino can have
-     * 4 different orientations, and therefore each TileMap will occupy
-     * different cells differently. Subclasses need to define the structure
-     * of their respective Tetromino.
+     * Constructs a piece of a PieceSet, which takes its shape and color
+     * from the set, instead of from a subclass.
+     * @param grid - grid that the piece moves around in
+     * @param pieceSet - set that the type belongs to
+     * @param type - type of piece, from 1 to pieceSet.getCount()
      */
-    public abstract void createTileMaps();
-
-    /**
-     * Initializes tetrominoes with access to the grid so that various movement
-     * operations can take place.
-     * @param _grid - the grid that all tetrominoes will belong too
-     * @return true if initialized successfully, false otherwise
-     */
-    public static boolean init(Grid _grid) {
-        if (_grid != null) {
-            grid = _grid;
-            initialized = true;
+    protected Tetromino(Grid grid, PieceSet pieceSet, int type) {
+        checkGrid(grid);
+        if (pieceSet == null || type < 1 || type > pieceSet.getCount()) {
+            String error = "Invalid piece type " + type + " for piece set!";
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
         }
-        return initialized;
+        this.grid = grid;
+        this.pieceSet = pieceSet;
+        init(pieceSet.getColor(type), pieceSet.getTileMaps(type), type);
     }
 
     /**
-     * Utility method for cloning all tiles into a new tiles array
-     * @param tilesToClone - array containing tiles to clone
-     * @return new array, with cloned tiles
+     * @param grid - grid to check
+     * @throws - IllegalArgumentException if there is no grid
      */
-    public static Tile[] cloneTiles(Tile[] tilesToClone) {
-        Tile[] clonedTiles = new Tile[tilesToClone.length];
-        for (int i = 0; i < tilesToClone.length; i++) {
-            clonedTiles[i] = tilesToClone[i].clone();
+    private static void checkGrid(Grid grid) {
+        if (grid == null) {
+            String error = "A Tetromino can't be constructed without a Grid!";
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
         }
-        return clonedTiles;
     }
 
     /**
-     * Utility method for checking all tiles in array, down 1 row.
-     * @param tilesToCheck - array of tiles to check
-     * @return true if tilesToCheck fits, down 1 row
+     * Method to be implemented by all subclasses that returns all the
+     * TileMaps that make up a Tetromino. At most, a Tetromino can have
+     * 4 different orientations, and therefore each TileMap will occupy
+     * different cells differently. Subclasses should build and validate
+     * these tables once, when the class is loaded, so that every instance
+     * shares them.
+     * @return TileMaps indexed by orientation
      */
-    public static boolean checkFitDown(Tile[] tilesToCheck) {
-        return checkFit(tilesToCheck, 0, 1);
-    }
+    protected abstract TileMap[] getTileMaps();
 
     /**
-     * Utility method for moving all tiles in array, down 1 row.
-     * @param tilesToMove - array of tiles to move
+     * @return the type of this Tetromino, which is one of the constants
+     * defined in the Tetrominoes class
      */
-    public static Tile[] moveTilesDown(Tile[] tilesToMove) {
-        for (Tile t : tilesToMove) {
-            if (t != null) {
-                t.setRow(t.getRow() + 1);
-                if (t.getRow() >= Grid.ROW_COUNT) {
-                    t.setRow(Grid.ROW_COUNT);
-                    t.setVisible(false);
-                }
-            } else {
-                break;
-            }
-        }
-        return tilesToMove;
-    }
+    public abstract int getType();
 
     /**
      * Initializes this tetromino shape with a specified color.
      * @param color - Color to assign to this Tetromino for drawing
+     * @param tileMaps - shared rotation table of the type
+     * @param type - type of this Tetromino
      */
-    private void init(Color color) {
-        if (initialized) {
-            this.color = color;
-            createTileMaps();
-            createTileArrays();
-            curOrientation = ORIENTATION_NORTH;
-        } else {
-            Logger.log(MessageLevel.FATAL_ERROR, "Call Tetromino.init() first before constructing any instances!");
-        }
+    private void init(Color color, TileMap[] tileMaps, int type) {
+        this.color = color;
+        this.tileMaps = tileMaps;
+        createTileArrays();
+        state = PieceState.of(type, ORIENTATION_NORTH, 0, 0);
     }
 
     /**
-     * Creates the active and temp tile arrays to hold the activeTiles
-     * that are actively seen.
+     * Creates the active tile array to hold the activeTiles that are
+     * actively seen. The pivot tile is always the last tile.
      */
     private void createTileArrays() {
-        activeTiles = new Tile[TileMap.TILE_COUNT];
-        tempTiles = new Tile[TileMap.TILE_COUNT];
+        int tileCount = tileMaps[ORIENTATION_NORTH].getCellCount();
+        activeTiles = new Tile[tileCount];
 
-        for (int i = 0; i < TileMap.TILE_COUNT - 1; i++) {
-            Tile activeTile = new Tile(getColor(), false);
-            addToArrays(i, activeTile, activeTile.clone());
+        for (int i = 0; i < tileCount - 1; i++) {
+            activeTiles[i] = new Tile(getColor(), false);
         }
         pivotTile = new Tile(getColor(), true);
-        addToArrays(TileMap.TILE_COUNT - 1, pivotTile, pivotTile.clone());
-        Logger.log(MessageLevel.INFO, "%s tile map arrays created!", getClass().getName());
-    }
-
-    /**
-     * Convenience method for adding an active tile to the active tiles
-     * array, and a temp tile to the temp tiles array
-     * @param index - index to add tiles to
-     * @param activeTile - active tile to add to active tiles array
-     * @param tempTile - temp tile to add to temp tiles array
-     */
-    private void addToArrays(int index, Tile activeTile, Tile tempTile) {
-        if (index < activeTiles.length) {
-            activeTiles[index] = activeTile;
-            tempTiles[index] = tempTile;
-        }
+        activeTiles[tileCount - 1] = pivotTile;
     }
 
     /**
-     * Updates the active tiles with the current orientation
+     * Updates the active tiles from the packed piece state, using the
+     * precomputed cell offsets of the current tile map.
      * @return tile array, with correctly positioned activeTiles in
      * relation to the grid.
      */
     public Tile[] updateTiles() {
-        return updateTiles(activeTiles, curOrientation);
-    }
+        TileMap tileMap = getTileMap();
+        int pivotCol = PieceState.getCol(state);
+        int pivotRow = PieceState.getRow(state);
 
-    /**
-     * Updates activeTiles array based on the specified orientation tile array.
-     * @param tiles - Tiles array to update
-     * @param orientation - Orientation to update to
-     * @return tile array, with correctly positioned activeTiles in relation
-     * to the grid.
-     */
-    private Tile[] updateTiles(Tile[] tiles, int orientation) {
-        TileMap tileMap = getTileMap(orientation);
-        Point relPivotPt = tileMap.getPivotPt();
-        int index = 0;
-
-        for (int col = 0; col < TileMap.TILE_COUNT; col++) {
-            for (int row = 0; row < TileMap.TILE_COUNT; row++) {
-                if (tileMap.get(col, row) == Tile.REGULAR) {
-                    if (index < tiles.length) {
-                        Tile t = tiles[index];
-                        positionTileInGrid(t, relPivotPt, pivotTile.getGridLocation(), col, row);
-                        index++;
-                    } else {
-                        break;
-                    }
-                }
-            }
+        for (int i = 0; i < activeTiles.length; i++) {
+            activeTiles[i].setGridLocation(pivotCol + tileMap.getCellCol(i),
+                                           pivotRow + tileMap.getCellRow(i));
         }
-        Logger.log(MessageLevel.INFO, "Tiles updated in %s", getClass().getName());
-        return tiles;
+        return activeTiles;
     }
 
     /**
@@ -211,37 +155,13 @@ public abstract class Tetromino {
      * current orientation.
      */
     public TileMap getTileMap(int orientation) {
-        switch (orientation) {
-            case ORIENTATION_NORTH:
-                return northTiles;
-            case ORIENTATION_EAST:
-                return eastTiles;
-            case ORIENTATION_SOUTH:
-                return southTiles;
-            case ORIENTATION_WEST:
-                return westTiles;
-            default:
-                String error = "Invalid orientation value. Must be one of the " +
-                                "defined constants in Tetromino!";
-                Logger.log(MessageLevel.FATAL_ERROR, error);
-                throw new IllegalArgumentException(error);
+        if (orientation < ORIENTATION_NORTH || orientation > ORIENTATION_WEST) {
+            String error = "Invalid orientation value. Must be one of the " +
+                            "defined constants in Tetromino!";
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
         }
-    }
-
-    /**
-     * Calculates a tile's positioning in the grid, based on its relation to other
-     * activeTiles in this Tetromino, that make up the shape
-     * @param tile - Individual tile to update
-     * @param relPivotPt - Tetromino's shape array pivot pt
-     * @param gridPivotPt - Tetromino's actual active pivot pt in grid
-     * @param col - relative col
-     * @param row - relative row
-     */
-    private void positionTileInGrid(Tile tile, Point relPivotPt, Point gridPivotPt, int col, int row) {
-        int colDX = relPivotPt.getCol() - col;
-        int rowDX = relPivotPt.getRow() - row;
-        tile.setGridLocation((gridPivotPt.getCol() + colDX),
-                             (gridPivotPt.getRow() + rowDX));
+        return tileMaps[orientation];
     }
 
     /**
@@ -276,6 +196,18 @@ public abstract class Tetromino {
         return move(0, -1);
     }
 
+    /**
+     * Drops this tetromino straight down, to where it would land, in
+     * a single move.
+     * @return number of rows that this tetromino dropped
+     */
+    public int drop() {
+        int dropped = PieceState.drop(grid, pieceSet, state);
+        int rows = PieceState.getRow(dropped) - PieceState.getRow(state);
+        setState(dropped);
+        return rows;
+    }
+
     /**
      * Moves this Tetromino specified delta values on cols and rows
      * @param colDX - cols to move, relative to current pos
@@ -283,15 +215,23 @@ public abstract class Tetromino {
      * @return
      */
     private boolean move(int colDX, int rowDX) {
-        boolean success = false;
-        if (checkFit(colDX, rowDX)) {
-            for (Tile t : activeTiles) {
-                t.setGridLocation(t.getCol() + colDX, t.getRow() + rowDX);
-            }
-            grid.highlightTiles();
-            success = true;
+        return setState(PieceState.tryMove(grid, pieceSet, state, colDX, rowDX));
+    }
+
+    /**
+     * Changes the packed piece state of this Tetromino, and updates the
+     * tiles and highlights to match.
+     * @param next - new packed piece state
+     * @return true if the state changed, false if it was the same
+     */
+    private boolean setState(int next) {
+        if (next == state) {
+            return false;
         }
-        return success;
+        state = next;
+        updateTiles();
+        grid.highlightTiles();
+        return true;
     }
 
     /**
@@ -302,7 +242,7 @@ public abstract class Tetromino {
      * @return
      */
     public boolean checkFit(int colDX, int rowDX) {
-        return checkFit(activeTiles, colDX, rowDX);
+        return PieceState.fits(grid, pieceSet, PieceState.move(state, colDX, rowDX));
     }
 
     /**
@@ -315,42 +255,12 @@ public abstract class Tetromino {
 
     /**
      * Rotates this tetromino. If the orientation is exceeded, it is reset
-     * back to the starting orientation,
+     * back to the starting orientation. The orientation is only changed if
+     * the rotated shape fits within the grid.
      * @return true if rotation was successful, false otherwise
      */
     public boolean rotate() {
-        if (++curOrientation > ORIENTATION_WEST) {
-            curOrientation = ORIENTATION_NORTH;  // we've rotated all directions, need to reset
-        }
-        return rotate(curOrientation);
-    }
-
-    /**
-     * Rotates to the specified orientation
-     * @param orientation - orientation to rotate too
-     * @return true if rotation was successful, false otherwise
-     */
-    private boolean rotate(int orientation) {
-        boolean success = false;
-        curOrientation = orientation;
-        if (checkRotation(orientation)) {
-            grid.highlightTiles();
-            success = true;
-        }
-        return success;
-    }
-
-    /**
-     * Checks the rotation at the specified orientation
-     * @param orientation - orientation to potentially rotate to
-     * @return true if it was successful, false otherwise
-     */
-    private boolean checkRotation(int orientation) {
-        updateTiles(tempTiles, orientation);
-        if (checkFit(tempTiles)) {
-            updateTiles();
-        }
-        return true;
+        return setState(PieceState.tryRotate(grid, pieceSet, state));
     }
 
     /**
@@ -361,12 +271,10 @@ public abstract class Tetromino {
      * @param rowDX movement diff on rows
      * @return true if ALL activeTiles fit, false otherwise
      */
-    public static boolean checkFit(Tile[] tiles, int colDX, int rowDX) {
+    public boolean checkFit(Tile[] tiles, int colDX, int rowDX) {
         boolean doesFit = true;
         for (Tile t : tiles) {
-            // create new temporary pt, with movement DX applied, to see if it fits within grid
-            Point checkPt = new Point(t.getCol() + colDX, t.getRow() + rowDX);
-            if (!grid.checkTileFit(checkPt)) {
+            if (!grid.checkTileFit(t.getCol() + colDX, t.getRow() + rowDX)) {
                 doesFit = false;
                 break;
             }
@@ -374,15 +282,6 @@ public abstract class Tetromino {
         return doesFit;
     }
 
-    /**
-     * Checks fit of specified tiles
-     * @param tiles - tiles array to check
-     * @return - true if tiles fit, false otherwise
-     */
-    private boolean checkFit(Tile[] tiles) {
-        return checkFit(tiles, 0, 0);
-    }
-
     /**
      * Draws this tetromino to the screen.
      * @param g2d - graphics context to draw to
@@ -391,7 +290,6 @@ public abstract class Tetromino {
         for (Tile t : activeTiles) {
             t.render(g2d);
         }
-        pivotTile.render(g2d);
     }
 
     /**
@@ -400,7 +298,32 @@ public abstract class Tetromino {
      * @param pt - grid location for the pivot pt
      */
     public void setPivotGridLocation(Point pt) {
-        pivotTile.setGridLocation(pt);
+        setPivotGridLocation(pt.getCol(), pt.getRow());
+    }
+
+    /**
+     * Sets the pivot grid location of the PivotTile that makes up
+     * this Tetromino
+     * @param col - col for the pivot tile
+     * @param row - row for the pivot tile
+     */
+    public void setPivotGridLocation(int col, int row) {
+        state = PieceState.moveTo(state, col, row);
+        pivotTile.setGridLocation(col, row);
+    }
+
+    /**
+     * @return the grid that this Tetromino moves around in
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the piece set that the type of this Tetromino belongs to
+     */
+    public PieceSet getPieceSet() {
+        return pieceSet;
     }
 
     /**
@@ -417,6 +340,27 @@ public abstract class Tetromino {
         return activeTiles;
     }
 
+    /**
+     * @return the tile map of the current orientation
+     */
+    public TileMap getTileMap() {
+        return tileMaps[PieceState.getOrientation(state)];
+    }
+
+    /**
+     * @return the current orientation of this Tetromino
+     */
+    public int getOrientation() {
+        return PieceState.getOrientation(state);
+    }
+
+    /**
+     * @return the packed PieceState of this Tetromino
+     */
+    public int getState() {
+        return state;
+    }
+
     /**
      * @return the pivot tile of this Tetromino
      */
@@ -1,5 +1,7 @@
 package shapes.Tetrominoes;
 
+import utils.Logger;
+import utils.MessageLevel;
 
 /**
  * This class encapsulates a collection of constant field values
@@ -21,4 +23,34 @@ public final class Tetrominoes {
     public static final int SQUARE = 7;
 
     private Tetrominoes() {}  // prevent instantiation
+
+    /**
+     * Gets the shared rotation tables of a type of tetromino, without having
+     * to create an instance of it.
+     * @param type - one of the type constants
+     * @return TileMaps indexed by orientation
+     */
+    public static TileMap[] getTileMaps(int type) {
+        // classes are fully qualified, since the type constants share their names
+        switch (type) {
+            case J:
+                return shapes.Tetrominoes.J.TILE_MAPS;
+            case L:
+                return shapes.Tetrominoes.L.TILE_MAPS;
+            case T:
+                return shapes.Tetrominoes.T.TILE_MAPS;
+            case Z:
+                return shapes.Tetrominoes.Z.TILE_MAPS;
+            case S:
+                return shapes.Tetrominoes.S.TILE_MAPS;
+            case LINE:
+                return shapes.Tetrominoes.Line.TILE_MAPS;
+            case SQUARE:
+                return shapes.Tetrominoes.Square.TILE_MAPS;
+            default:
+                String error = "Invalid tetromino type: " + type;
+                Logger.log(MessageLevel.FATAL_ERROR, error);
+                throw new IllegalArgumentException(error);
+        }
+    }
 }
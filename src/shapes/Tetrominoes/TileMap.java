@@ -1,24 +1,56 @@
 package shapes.Tetrominoes;
 
+import shapes.Coord;
 import shapes.Point;
 import shapes.Tile;
+import utils.Logger;
 import utils.MapValidator;
+import utils.MessageLevel;
 
 /**
  * Created by David Kramer on 2/7/2016.
  */
 public abstract class TileMap {
     public static final int TILE_COUNT = 4; // no Tetromino can have more than this
+    public static final int MAX_SIZE = 8;   // no tile map array, of any piece set, can be larger than this
 
     protected int[][] tileMap;
-    protected Point pivotPt;
+    protected int pivotPt;      // packed Coord of the pivot tile, within the tile map
+    private int cellCount;      // number of tiles, including the pivot tile
+
+    /**
+     * Precomputed cell offsets, relative to the pivot tile. The regular tiles
+     * come first, in the same order that Tetromino positions its active tiles,
+     * and the pivot tile, with an offset of (0, 0), is always last.
+     */
+    private int[] cellCols;
+    private int[] cellRows;
+
+    /**
+     * Precomputed row masks of the shape, for fit testing against a BitBoard.
+     * Bit 0 of each mask lines up with maskCol, and the first mask lines up
+     * with maskRow, both of which are relative to the pivot tile.
+     */
+    private int[] rowMasks;
+    private int maskCol;
+    private int maskRow;
+
+    /**
+     * Precomputed bottom profile of the shape. For each column of the shape,
+     * starting at maskCol, this holds the row offset of its lowest tile,
+     * relative to the pivot tile.
+     */
+    private int[] bottomRows;
 
 
 
 
     private TileMap() {     // don't instantiate directly, instead use fromArray method
         tileMap = createTileMap();
+        cellCount = countCells(tileMap);
         setPivotPt(findRelPivot(tileMap));
+        createCells();
+        createMasks();
     }
 
     protected abstract int[][] createTileMap();
@@ -27,18 +59,34 @@ public abstract class TileMap {
      * Utility method to allow for this class to be created cleanly, by simply
      * a 2D int array, layed out with the tile map positions. This will
      * define an instance of this TileMap class and figure out the pivot pt,
-     * in relation to the 2D int array.
+     * in relation to the 2D int array. The array is validated once, here,
+     * so a TileMap can be shared and reused without checking it again.
      * @param arr
      * @return
+     * @throws - IllegalArgumentException if the array is not a valid tile map
      */
     public static TileMap fromArray(int[][] arr) {
+        return fromArray(arr, TILE_COUNT);
+    }
+
+    /**
+     * Creates a TileMap of a piece that is made up of the specified number
+     * of tiles, which may differ from a Tetromino, such as a pentomino.
+     * @param arr - square tile map array, no larger than MAX_SIZE
+     * @param cellCount - number of tiles, including the pivot tile
+     * @return
+     * @throws - IllegalArgumentException if the array is not a valid tile map
+     */
+    public static TileMap fromArray(int[][] arr, int cellCount) {
+        if (!MapValidator.validate(arr, cellCount)) {
+            String error = "Invalid tile map array!";
+            Logger.log(MessageLevel.FATAL_ERROR, error);
+            throw new IllegalArgumentException(error);
+        }
         TileMap map = new TileMap() {
             protected int[][] createTileMap() {
-                if (MapValidator.validate(arr)) {
-                    this.tileMap = arr;
-                    return tileMap;
-                }
-                return null;
+                this.tileMap = arr;
+                return tileMap;
             }
         };
         return map;
@@ -48,24 +96,97 @@ public abstract class TileMap {
      * Utility method for finding where the pivot tile is in an
      * int[][] array.
      * @param arr - tile map array
-     * @return point containing row and col of pivot pt
+     * @return packed Coord containing row and col of pivot pt
      */
-    private static Point findRelPivot(int[][] arr) {
-        for (int col = 0; col < TILE_COUNT; col++) {
-            for (int row = 0; row < TILE_COUNT; row++) {
+    private static int findRelPivot(int[][] arr) {
+        for (int col = 0; col < arr.length; col++) {
+            for (int row = 0; row < arr[col].length; row++) {
                 if (arr[col][row] == Tile.PIVOT) {
-                    return new Point(col, row);
+                    return Coord.of(col, row);
                 }
             }
         }
-        return null;
+        String error = "Tile map array has no pivot tile!";
+        Logger.log(MessageLevel.FATAL_ERROR, error);
+        throw new IllegalArgumentException(error);
+    }
+
+    /**
+     * @param arr - tile map array
+     * @return number of regular and pivot tiles in the array
+     */
+    private static int countCells(int[][] arr) {
+        int count = 0;
+        for (int col = 0; col < arr.length; col++) {
+            for (int row = 0; row < arr[col].length; row++) {
+                if (arr[col][row] != Tile.EMPTY) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates the cell offsets of every tile, relative to the pivot tile.
+     */
+    private void createCells() {
+        cellCols = new int[cellCount];
+        cellRows = new int[cellCount];
+        int index = 0;
+
+        for (int col = 0; col < tileMap.length; col++) {
+            for (int row = 0; row < tileMap[col].length; row++) {
+                if (tileMap[col][row] == Tile.REGULAR && index < cellCount - 1) {
+                    cellCols[index] = Coord.getCol(pivotPt) - col;
+                    cellRows[index] = Coord.getRow(pivotPt) - row;
+                    index++;
+                }
+            }
+        }
+        // pivot tile is always last, and sits right on the pivot location
+        cellCols[cellCount - 1] = 0;
+        cellRows[cellCount - 1] = 0;
+    }
+
+    /**
+     * Creates the row masks from the cell offsets, so that the whole shape
+     * can be tested against a BitBoard one row at a time.
+     */
+    private void createMasks() {
+        int minCol = 0;
+        int minRow = 0;
+        int maxRow = 0;
+        for (int i = 0; i < cellCount; i++) {
+            minCol = Math.min(minCol, cellCols[i]);
+            minRow = Math.min(minRow, cellRows[i]);
+            maxRow = Math.max(maxRow, cellRows[i]);
+        }
+        maskCol = minCol;
+        maskRow = minRow;
+        rowMasks = new int[maxRow - minRow + 1];
+
+        int maxCol = 0;
+        for (int i = 0; i < cellCount; i++) {
+            rowMasks[cellRows[i] - minRow] |= 1 << (cellCols[i] - minCol);
+            maxCol = Math.max(maxCol, cellCols[i]);
+        }
+
+        bottomRows = new int[maxCol - minCol + 1];
+        for (int col = 0; col < bottomRows.length; col++) {
+            bottomRows[col] = Integer.MIN_VALUE;
+        }
+        for (int i = 0; i < cellCount; i++) {
+            int col = cellCols[i] - minCol;
+            bottomRows[col] = Math.max(bottomRows[col], cellRows[i]);
+        }
     }
 
     /**
      * Sets the pivot pt location in the tile map
      * @param pivotPt
      */
-    protected void setPivotPt(Point pivotPt) {
+    protected void setPivotPt(int pivotPt) {
         this.pivotPt = pivotPt;
     }
 
@@ -73,7 +194,81 @@ public abstract class TileMap {
      * @return the pivot pt location in the map
      */
     public Point getPivotPt() {
-        return pivotPt;
+        return Coord.toPoint(pivotPt);
+    }
+
+    /**
+     * @return number of tiles in this map, including the pivot tile
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return width and height of the backing tile map array
+     */
+    public int getSize() {
+        return tileMap.length;
+    }
+
+    /**
+     * @param index - index of the tile, where the last index is the pivot tile
+     * @return col offset of the tile, relative to the pivot tile
+     */
+    public int getCellCol(int index) {
+        return cellCols[index];
+    }
+
+    /**
+     * @param index - index of the tile, where the last index is the pivot tile
+     * @return row offset of the tile, relative to the pivot tile
+     */
+    public int getCellRow(int index) {
+        return cellRows[index];
+    }
+
+    /**
+     * @return row masks of this shape, one per row, from top to bottom
+     */
+    public int[] getRowMasks() {
+        return rowMasks;
+    }
+
+    /**
+     * @return row offset of the lowest tile in each column of this shape,
+     * relative to the pivot, starting at the col offset of getMaskCol(), or
+     * Integer.MIN_VALUE for a column without any tiles
+     */
+    public int[] getBottomRows() {
+        return bottomRows;
+    }
+
+    /**
+     * @return number of cols that the tiles of this shape span
+     */
+    public int getWidth() {
+        return bottomRows.length;
+    }
+
+    /**
+     * @return number of rows that the tiles of this shape span
+     */
+    public int getHeight() {
+        return rowMasks.length;
+    }
+
+    /**
+     * @return col offset, relative to the pivot, that bit 0 of each row mask lines up with
+     */
+    public int getMaskCol() {
+        return maskCol;
+    }
+
+    /**
+     * @return row offset, relative to the pivot, of the first row mask
+     */
+    public int getMaskRow() {
+        return maskRow;
     }
 
     /**
@@ -97,7 +292,7 @@ public abstract class TileMap {
      * @return true if both col and row are within the limits
      */
     private boolean check(int col, int row) {
-        return (col >= 0 && col < TILE_COUNT) && (row >= 0 && row < TILE_COUNT);
+        return (col >= 0 && col < tileMap.length) && (row >= 0 && row < tileMap.length);
     }
 }
 
@@ -29,7 +29,7 @@ public class Tile extends Rectangle implements Cloneable {
     public static int X_OFFSET  = DEFAULT_X_OFFSET;
     public static int Y_OFFSET  = DEFAULT_Y_OFFSET;
 
-    protected Point location;   // col, row position of this tile
+    protected int location;     // packed Coord of the col, row position of this tile
     protected Color color;
     protected boolean isVisible;
     private boolean isPivot;    // is this tile the pivot tile for the overall shape?
@@ -48,8 +48,13 @@ public class Tile extends Rectangle implements Cloneable {
      */
     public static void setGlobalScale(float scaleFactor) {
         if (scaleFactor > 0.5f) {
-            WIDTH = (int)(DEFAULT_WIDTH * scaleFactor);
-            HEIGHT = (int)(DEFAULT_HEIGHT * scaleFactor);
+            int width = (int)(DEFAULT_WIDTH * scaleFactor);
+            int height = (int)(DEFAULT_HEIGHT * scaleFactor);
+            if (width != WIDTH || height != HEIGHT) {
+                WIDTH = width;
+                HEIGHT = height;
+                TileSprites.invalidate();   // every cached tile image is now the wrong size
+            }
         }
     }
 
@@ -82,6 +87,44 @@ public class Tile extends Rectangle implements Cloneable {
         return SHOW_DEBUG;
     }
 
+    /**
+     * Draws a filled and outlined tile at the specified grid location, the
+     * same way that a visible Tile renders itself.
+     * @param g2d - graphics context to draw to
+     * @param color - fill color
+     * @param col - col to draw at
+     * @param row - row to draw at
+     * @param yOffset - vertical pixel offset, that only affects drawing
+     */
+    public static void draw(Graphics2D g2d, Color color, int col, int row, int yOffset) {
+        drawAt(g2d, color, col * WIDTH + X_OFFSET, row * HEIGHT + Y_OFFSET + yOffset, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Draws a filled and outlined tile at a pixel location, outside of any
+     * grid, such as for a piece preview.
+     * @param g2d - graphics context to draw to
+     * @param color - fill color
+     * @param x - x pixel location
+     * @param y - y pixel location
+     * @param width - width of the tile
+     * @param height - height of the tile
+     */
+    public static void drawAt(Graphics2D g2d, Color color, int x, int y, int width, int height) {
+        TileSprites.draw(g2d, TileSprites.KIND_FILLED, color, x, y, width, height);
+    }
+
+    /**
+     * Draws the pivot tile indicator, for a pivot tile at the specified
+     * grid location.
+     * @param g2d - graphics context to draw to
+     * @param col - col of the pivot tile
+     * @param row - row of the pivot tile
+     */
+    public static void drawPivotDebug(Graphics2D g2d, int col, int row) {
+        g2d.drawString("P", col * WIDTH + X_OFFSET + 10, row * HEIGHT + Y_OFFSET + 18);
+    }
+
     /**
      * Initializes this Tile
      * @param color - Color
@@ -90,7 +133,7 @@ public class Tile extends Rectangle implements Cloneable {
     private void init(Color color, boolean pivot) {
         this.color = color;
         this.isPivot = pivot;
-        location = new Point();
+        location = Coord.of(0, 0);
         isVisible = true;
     }
 
@@ -100,8 +143,7 @@ public class Tile extends Rectangle implements Cloneable {
      */
     public void render(Graphics2D g2d) {
         if (isVisible) {
-            drawFilled(g2d);
-            drawOutlined(g2d);
+            drawAt(g2d, color, getDrawX(), getDrawY(), WIDTH, HEIGHT);
         }
         if (SHOW_DEBUG) {
             drawDebug(g2d);
@@ -151,32 +193,53 @@ public class Tile extends Rectangle implements Cloneable {
     }
 
     public int getCol() {
-        return location.getCol();
+        return Coord.getCol(location);
     }
 
     public void setCol(int col) {
-        location.setCol(col);
+        location = Coord.of(col, getRow());
     }
 
     public int getRow() {
-        return location.getRow();
+        return Coord.getRow(location);
     }
 
     public void setRow(int row) {
-        location.setRow(row);
+        location = Coord.of(getCol(), row);
     }
 
     public void setGridLocation(int col, int row) {
-        location.setCol(col);
-        location.setRow(row);
+        location = Coord.of(col, row);
     }
 
-    public Point getGridLocation() {
+    /**
+     * @return packed Coord of this tile's grid location
+     */
+    public int getCoord() {
         return location;
     }
 
+    /**
+     * @param coord - packed Coord of the new grid location
+     */
+    public void setCoord(int coord) {
+        location = coord;
+    }
+
+    /**
+     * @return a copy of this tile's grid location
+     */
+    public Point getGridLocation() {
+        return Coord.toPoint(location);
+    }
+
+    /**
+     * Moves this tile to the location of the point. Only the values are
+     * copied, so the point can be changed afterwards without moving the tile.
+     * @param p - new grid location
+     */
     public void setGridLocation(Point p) {
-        this.location = p;
+        location = Coord.of(p);
     }
 
     public boolean isPivot() {
@@ -197,12 +260,12 @@ public class Tile extends Rectangle implements Cloneable {
 
     public Tile clone() {
         Tile tileClone = new Tile(getColor(), isPivot());
-        tileClone.setGridLocation(new Point(getCol(), getRow()));
+        tileClone.setCoord(location);
         return tileClone;
     }
 
     public String toString() {
-        return "Tile -> isPivot: " + isPivot + ", " + location;
+        return "Tile -> isPivot: " + isPivot + ", " + Coord.toString(location);
     }
 
 }
@@ -0,0 +1,140 @@
+package shapes;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of pre-rendered tile images. Each combination of color, size and
+ * kind of tile is rasterized only once, into an image that is compatible
+ * with the screen, so that Java2D can keep it in accelerated memory. Drawing
+ * a tile is then a single drawImage call, instead of rasterizing a 3D
+ * rectangle and an outline every frame.
+ * *NOTE the cache is cleared whenever the global tile size changes, since
+ * every image in it would be the wrong size.
+ */
+public final class TileSprites {
+
+    /**
+     * Kinds of tile image.
+     */
+    public static final int KIND_FILLED     = 0;    // 3D filled tile, with a black outline
+    public static final int KIND_GHOST      = 1;    // highlighted empty grid cell, with its outline
+
+    private static final int MAX_COUNT = 1024;  // cache is started over past this, such as after lots of random colors
+
+    private static final Map<Long, Image> sprites = new ConcurrentHashMap<>();
+
+
+
+    private TileSprites() {}    // prevent instantiation
+
+    /**
+     * Draws a cached tile image, rasterizing it first if it isn't cached yet.
+     * @param g2d - graphics context to draw to
+     * @param kind - one of the kind constants
+     * @param color - fill color of a filled tile, or the outline color of a ghost cell
+     * @param x - x pixel location
+     * @param y - y pixel location
+     * @param width - width of the tile
+     * @param height - height of the tile
+     */
+    public static void draw(Graphics2D g2d, int kind, Color color, int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        g2d.drawImage(get(kind, color, width, height), x, y, null);
+    }
+
+    /**
+     * @param kind - one of the kind constants
+     * @param color - fill color of a filled tile, or the outline color of a ghost cell
+     * @param width - width of the tile
+     * @param height - height of the tile
+     * @return the cached image of the tile
+     */
+    public static Image get(int kind, Color color, int width, int height) {
+        long key = ((long)color.getRGB() << 32) | ((long)(width & 0xFFF) << 20)
+                | ((height & 0xFFF) << 8) | kind;
+        Image sprite = sprites.get(key);
+        if (sprite == null) {
+            if (sprites.size() >= MAX_COUNT) {
+                sprites.clear();
+            }
+            sprite = create(kind, color, width, height);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Rasterizes a tile, the same way that it used to be drawn every frame.
+     * Outlines cover one extra pixel on the right and bottom, so the image
+     * is one pixel larger than the tile.
+     * @param kind - one of the kind constants
+     * @param color - fill color of a filled tile, or the outline color of a ghost cell
+     * @param width - width of the tile
+     * @param height - height of the tile
+     * @return a new image of the tile
+     */
+    private static Image create(int kind, Color color, int width, int height) {
+        // every kind covers every pixel, so only see-through colors need transparency
+        int transparency = (color.getAlpha() == 255) ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+        BufferedImage img = createCompatibleImage(width + 1, height + 1, transparency);
+        Graphics2D g2d = img.createGraphics();
+        try {
+            switch (kind) {
+                case KIND_FILLED:
+                    g2d.setColor(color);
+                    g2d.fill3DRect(0, 0, width, height, true);
+                    g2d.setColor(Color.BLACK);
+                    g2d.drawRect(0, 0, width, height);
+                    break;
+                case KIND_GHOST:
+                    g2d.setColor(GridTile.HIGHLIGHT_COLOR);
+                    g2d.fillRect(0, 0, width, height);
+                    g2d.setColor(color);
+                    g2d.drawRect(0, 0, width, height);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid tile sprite kind: " + kind);
+            }
+        } finally {
+            g2d.dispose();
+        }
+        return img;
+    }
+
+    /**
+     * Opaque images are by far the cheapest to draw, so they are used
+     * whenever the image doesn't need any transparency.
+     * @param width - width of the image
+     * @param height - height of the image
+     * @param transparency - one of the Transparency constants
+     * @return an image, in the format of the screen when there is one
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return config.createCompatibleImage(width, height, transparency);
+        }
+        int type = (transparency == Transparency.OPAQUE) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(width, height, type);
+    }
+
+    /**
+     * Throws away every cached image, such as after the tile size changes.
+     */
+    public static void invalidate() {
+        sprites.clear();
+    }
+
+    /**
+     * @return number of cached images
+     */
+    public static int getCount() {
+        return sprites.size();
+    }
+}
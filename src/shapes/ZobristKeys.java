@@ -0,0 +1,85 @@
+package shapes;
+
+import shapes.Tetrominoes.Tetromino;
+import shapes.Tetrominoes.PieceState;
+import shapes.Tetrominoes.TileMap;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing the positions of a Grid. The hash of
+ * a position is the XOR of the key of every filled cell, and optionally the
+ * keys of the falling tetromino, so that filling or emptying a single cell, or
+ * moving the tetromino, only costs a single XOR to keep the hash up to date.
+ * *NOTE keys are generated from a fixed seed, so the same position always
+ * hashes to the same value on grids of the same size, even across runs.
+ */
+public final class ZobristKeys {
+    private static final long SEED = 0x426C6F636B44726FL;   // fixed so hashes can be recorded and compared
+    private static final int ORIENTATION_COUNT = Tetromino.ORIENTATION_WEST + 1;
+    private static final int PAD = TileMap.MAX_SIZE;        // how far a pivot can be outside of the grid
+
+    private final int colCount;
+    private final long[] cellKeys;      // key of each cell, indexed the same as the GridTiles
+    private final long[] shapeKeys;     // key of each tetromino type and orientation
+    private final long[] pieceColKeys;  // key of each pivot col, offset by PAD
+    private final long[] pieceRowKeys;  // key of each pivot row, offset by PAD
+
+
+
+    /**
+     * Generates the keys for a grid of the specified size.
+     * @param colCount - number of columns in the grid
+     * @param rowCount - number of rows in the grid
+     */
+    public ZobristKeys(int colCount, int rowCount) {
+        this.colCount = colCount;
+        SplittableRandom rng = new SplittableRandom(SEED);
+        cellKeys = createKeys(rng, colCount * rowCount);
+        shapeKeys = createKeys(rng, (PieceState.MAX_TYPE + 1) * ORIENTATION_COUNT);
+        pieceColKeys = createKeys(rng, colCount + (PAD * 2));
+        pieceRowKeys = createKeys(rng, rowCount + (PAD * 2));
+    }
+
+    /**
+     * @param rng - random number generator to draw from
+     * @param count - number of keys
+     * @return array of random non zero keys
+     */
+    private static long[] createKeys(SplittableRandom rng, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long key;
+            do {
+                key = rng.nextLong();
+            } while (key == 0);
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * @param col - col of the cell
+     * @param row - row of the cell
+     * @return key of the specified cell
+     */
+    public long getCellKey(int col, int row) {
+        return cellKeys[(colCount * row) + col];
+    }
+
+    /**
+     * Combines the keys of the falling tetromino. The pivot must be within
+     * TileMap.MAX_SIZE cells of the grid, which it always is when the
+     * tetromino fits.
+     * @param type - type of tetromino, from 1 to PieceState.MAX_TYPE
+     * @param orientation - orientation of the tetromino
+     * @param pivotCol - col of the pivot tile
+     * @param pivotRow - row of the pivot tile
+     * @return key of the tetromino at the specified position
+     */
+    public long getPieceKey(int type, int orientation, int pivotCol, int pivotRow) {
+        return shapeKeys[(type * ORIENTATION_COUNT) + orientation]
+                ^ pieceColKeys[pivotCol + PAD]
+                ^ pieceRowKeys[pivotRow + PAD];
+    }
+}
@@ -154,8 +154,8 @@ public class EasterEggState extends State {
         animatedTiles = new GridTile[length];
 
         for (int i = 0; i < length; i++) {
-            int randCol = rng.nextInt(Grid.COL_COUNT);
-            int randRow = rng.nextInt(Grid.ROW_COUNT);
+            int randCol = rng.nextInt(Grid.DEFAULT_COL_COUNT);
+            int randRow = rng.nextInt(Grid.DEFAULT_ROW_COUNT);
 
             GridTile t = new GridTile(randCol, randRow);
             t.setColor(GameUtils.getRandomColor(true));
@@ -2,7 +2,6 @@ package states;
 
 import managers.StateManager;
 import utils.Logger;
-import utils.TimerUtil;
 
 import java.awt.*;
 import java.awt.event.KeyEvent;
@@ -25,7 +24,8 @@ public class GameOverState extends State {
     }
 
     private void init() {
-        TimerUtil.setAction(4500, true, e -> {
+        timerUtil.setAction(4500, true, e -> {
+            timerUtil.stop();
             StateManager.setActiveState(new IntroState());
         });
     }
@@ -49,11 +49,24 @@ public class GameOverState extends State {
      * @param g2d - graphics context to write to
      */
     public void render(Graphics2D g2d) {
+        render(g2d, 0);
+    }
+
+    /**
+     * Renders the text to the screen and fades out the background, blended
+     * toward the values of the next update.
+     * @param g2d - graphics context to write to
+     * @param step - from 0 to 1, fraction of a logic step since the last update
+     */
+    public void render(Graphics2D g2d, float step) {
+        int curAlpha = Math.min(Math.round(alpha + step), 255);
+        float curFontSize = Math.min(fontSize + step, 100);
+
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setColor(new Color(0, 0, 0, alpha));
+        g2d.setColor(new Color(0, 0, 0, curAlpha));
         g2d.fillRect(0, 0, getWidth(), getHeight());
-        g2d.setColor(new Color(0, 255, 255, alpha));
-        g2d.setFont(new Font("Courier New", Font.PLAIN, fontSize));
+        g2d.setColor(new Color(0, 255, 255, curAlpha));
+        g2d.setFont(new Font("Courier New", Font.PLAIN, 1).deriveFont(curFontSize));
 
         // center text horiz and vert
         int w = g2d.getFontMetrics().stringWidth(msg);
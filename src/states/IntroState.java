@@ -83,7 +83,7 @@ public class IntroState extends State implements Animation {
     public void animateIn() {
         isOpening = true;
         // fade out
-        TimerUtil.setAction(5, true, e -> {
+        timerUtil.setAction(5, true, e -> {
             alpha--;
             logoY++;
 
@@ -92,15 +92,15 @@ public class IntroState extends State implements Animation {
             }
 
             if (alpha <= 0) {
-                TimerUtil.stop();
+                timerUtil.stop();
                 isOpening = false;
                 // fade back in
-                TimerUtil.setAction(5, true, e2 -> {
+                timerUtil.setAction(5, true, e2 -> {
                     newAlpha += 2;
                     if (newAlpha >= 255) {
                         newAlpha = 255;
                         keyboardEnabled = true; // user can now control the app
-                        TimerUtil.stop();
+                        timerUtil.stop();
                     }
                     curChoiceColor = new Color(0, 255, 255, newAlpha);
                 });
@@ -135,6 +135,15 @@ public class IntroState extends State implements Animation {
         //TODO implement this
     }
 
+    /**
+     * The menu only moves while it is fading in or out, otherwise it only
+     * changes on a key press.
+     * @return true if this state is fading in or out
+     */
+    public boolean isAnimating() {
+        return timerUtil.isRunning();
+    }
+
     /**
      * Renders everything to the screen
      * @param g2d - graphics context to write to
@@ -268,8 +277,7 @@ public class IntroState extends State implements Animation {
      */
     private void launchGame() {
         GameUtils.playSound("res/doot2.wav");
-        StateManager.setActiveState(new PlayState());
-        Spawner.setCurSpeed(curLevelChoice);
+        StateManager.setActiveState(new PlayState(curLevelChoice));
         Logger.log(MessageLevel.INFO, "Launching game with level: " + curLevelChoice);
     }
 
@@ -292,7 +300,7 @@ public class IntroState extends State implements Animation {
      * next state.
      */
     public void animateOut() {
-        TimerUtil.setAction(5, true, e -> {
+        timerUtil.setAction(5, true, e -> {
             choiceAlpha -= 2;
             alpha -= 3;
             newAlpha -= 3;
@@ -312,7 +320,7 @@ public class IntroState extends State implements Animation {
                 newAlpha = 0;
                 if (choiceAlpha <= 0) {
                     choiceAlpha = 0;
-                    TimerUtil.stop();
+                    timerUtil.stop();
                     launchGame();
                 }
             }
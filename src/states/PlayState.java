@@ -1,9 +1,11 @@
 package states;
 
+import main.App;
+import main.Game;
+import main.GameEngine;
 import managers.StateManager;
 import shapes.Grid;
 import shapes.GridTile;
-import shapes.Tetrominoes.Tetromino;
 import shapes.Tile;
 import utils.*;
 
@@ -18,7 +20,9 @@ import java.awt.event.KeyEvent;
  * Created by David Kramer on 2/9/2016.
  */
 public class PlayState extends State implements Animation {
+    private Game game;
     private Grid grid;
+    private GameDisplay display;
 
     // animation stuff
     private int nextRow;
@@ -30,29 +34,28 @@ public class PlayState extends State implements Animation {
 
 
     public PlayState() {
-        init();
+        this(0);
+    }
+
+    /**
+     * Constructs a new PlayState, with a new game.
+     * @param startLevel - level to start the game at
+     */
+    public PlayState(int startLevel) {
+        init(startLevel);
     }
 
     /**
      * Initializes this PlayState.
-     * @return
+     * @param startLevel - level to start the game at
      */
-    private boolean init() {
-        boolean success = false;
-        grid = new Grid();
-        if (Tetromino.init(grid)) {
-            if (Spawner.init(this, grid)) {
-                success = true;
-                nextCol = -1;
-                animateIn();
-                GameDisplay.reset();
-            } else {
-                Logger.log(MessageLevel.FATAL_ERROR, "Spawner failed to initialize!");
-            }
-        } else {
-            Logger.log(MessageLevel.FATAL_ERROR, "Tetromino failed to initialize with grid!");
-        }
-        return success;
+    private void init(int startLevel) {
+        game = new Game(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT, startLevel, App.getPieceSet());
+        game.setGameOverListener(() -> StateManager.setActiveState(new GameOverState()));
+        grid = game.getGrid();
+        display = new GameDisplay(game);
+        nextCol = -1;
+        animateIn();
     }
 
     /**
@@ -60,23 +63,29 @@ public class PlayState extends State implements Animation {
      */
     public void animateIn() {
         nextCol = -1;
-        TimerUtil.setAction(6, true, e -> {
-            GameDisplay.animateIn();
+        timerUtil.setAction(6, true, e -> {
+            display.animateIn();
             nextCol++;
-            if (nextCol >= Grid.COL_COUNT) {
+            if (nextCol >= grid.getColCount()) {
                 nextRow++;
                 nextCol = 0;
             }
-            if (nextRow >= Grid.ROW_COUNT) {
-                TimerUtil.stop();
-                Spawner.start();
+            if (nextRow >= grid.getRowCount()) {
+                timerUtil.stop();
+                game.start();
             }
             GridTile t = grid.get(nextCol, nextRow);
             t.setColor(Color.DARK_GRAY);
+            grid.publish();
         });
     }
 
-    public void update() {}
+    /**
+     * Steps the game forward, by a single logic step.
+     */
+    public void update() {
+        game.getSpawner().update(StateManager.getLogicStep());
+    }
 
     /**
      * Renders everything in this PlayState to the screen.
@@ -84,8 +93,8 @@ public class PlayState extends State implements Animation {
      */
     public void render(Graphics2D g2d) {
         drawBG(g2d);
+        display.render(g2d);    // before the grid, since the HUD image covers whatever is behind it
         grid.render(g2d);
-        GameDisplay.render(g2d);
 
         if (isExiting) {
             // draw transparent rect to give appearance of fading out
@@ -93,6 +102,28 @@ public class PlayState extends State implements Animation {
         }
     }
 
+    /**
+     * Adds whatever the grid and the display changed since the last frame.
+     * While animating in or out, and in debug mode, everything changes.
+     * @param region - region to add to
+     */
+    public void collectDirty(DirtyRegion region) {
+        grid.collectDirty(region);
+        display.collectDirty(region);
+        if (isExiting || timerUtil.isRunning() || Tile.isShowDebug()) {
+            region.addAll();
+        }
+    }
+
+    /**
+     * The game stops changing on its own while it is paused, such as
+     * behind the quit dialog.
+     * @return true if the game is being played, or this state is animating
+     */
+    public boolean isAnimating() {
+        return game.getSpawner().isRunning() || timerUtil.isRunning();
+    }
+
     /**
      * Draws the background
      * @param g2d
@@ -117,30 +148,11 @@ public class PlayState extends State implements Animation {
      * @param e
      */
     public void keyPressed(KeyEvent e) {
-        Tetromino t = grid.getFallingTetromino();
+        handleMoveKey(e);
         switch (e.getKeyCode()) {
-            case KeyEvent.VK_RIGHT:
-            case KeyEvent.VK_D:
-                t.moveRight();
-                break;
-            case KeyEvent.VK_LEFT:
-            case KeyEvent.VK_A:
-                t.moveLeft();
-                break;
-            case KeyEvent.VK_DOWN:
-            case KeyEvent.VK_S:
-                t.moveDown();
-                break;
-//            case KeyEvent.VK_UP:
-//            case KeyEvent.VK_W:
-//                t.moveUp();
-//                break;
-            case KeyEvent.VK_R:
-                t.rotate();
-                break;
             case KeyEvent.VK_SPACE:
             case KeyEvent.VK_ENTER:
-                Spawner.animateDrop();
+                game.getEngine().hardDrop();
                 break;
             case KeyEvent.VK_ESCAPE:
                 showQuitDialog();
@@ -165,6 +177,36 @@ public class PlayState extends State implements Animation {
                 StateManager.setActiveState(new GameOverState());
                 break;
         }
+        grid.publish();
+    }
+
+    /**
+     * Handles the key presses that move the falling Tetromino.
+     * @param e
+     */
+    private void handleMoveKey(KeyEvent e) {
+        GameEngine engine = game.getEngine();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_RIGHT:
+            case KeyEvent.VK_D:
+                engine.moveRight();
+                break;
+            case KeyEvent.VK_LEFT:
+            case KeyEvent.VK_A:
+                engine.moveLeft();
+                break;
+            case KeyEvent.VK_DOWN:
+            case KeyEvent.VK_S:
+                engine.moveDown();
+                break;
+//            case KeyEvent.VK_UP:
+//            case KeyEvent.VK_W:
+//                t.moveUp();
+//                break;
+            case KeyEvent.VK_R:
+                engine.rotate();
+                break;
+        }
     }
 
     /**
@@ -172,13 +214,13 @@ public class PlayState extends State implements Animation {
      * If they exit, this state animates out.
      */
     private void showQuitDialog() {
-        Spawner.stopTimer();
+        game.pause();
         int result = JOptionPane.showConfirmDialog(this, "Do you really want to leave the game?",
                                                     "Confirm Quit", JOptionPane.OK_CANCEL_OPTION);
         if (result == 0) {  // quit
             animateOut();
         } else {    // continue game
-            Spawner.startTimer();
+            game.resume();
         }
     }
 
@@ -186,16 +228,16 @@ public class PlayState extends State implements Animation {
      * The animation for when we are leaving this state.
      */
     public void animateOut() {
-        TimerUtil.setAction(5, true, e-> {
+        timerUtil.setAction(5, true, e-> {
             isExiting = true;
-            GameDisplay.animateOut();
+            display.animateOut();
             Dimension size = StateManager.getAppSize();
             size.width -= 2;
             StateManager.setAppSize(size);
 
             if (size.width < 350) {
                 size.width = 350;
-                TimerUtil.stop();
+                timerUtil.stop();
                 StateManager.setActiveState(new IntroState());
             }
 
@@ -211,6 +253,13 @@ public class PlayState extends State implements Animation {
     public void keyTyped(KeyEvent e) {}
     public void keyReleased(KeyEvent e) {}
 
+    /**
+     * @return the game being played in this PlayState
+     */
+    public Game getGame() {
+        return game;
+    }
+
     /**
      * @return the grid in this PlayState
      */
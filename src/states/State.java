@@ -1,5 +1,8 @@
 package states;
 
+import utils.DirtyRegion;
+import utils.TimerUtil;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentListener;
@@ -12,6 +15,9 @@ import java.awt.event.KeyListener;
  * Created by David Kramer on 1/19/2016.
  */
 public abstract class State extends JPanel implements KeyListener {
+    protected final TimerUtil timerUtil = new TimerUtil();  // runs the animations of this state
+
+
 
     public State() {}   // default constructor
 
@@ -26,4 +32,37 @@ public abstract class State extends JPanel implements KeyListener {
      */
     public abstract void render(Graphics2D g2d);
 
+    /**
+     * Draws this state, part way between its last update and the next one.
+     * States that animate in whole update steps can override this, to blend
+     * toward where the next update will be, so that motion stays smooth when
+     * frames are rendered more often than updates.
+     * @param g2d - graphics context to write to
+     * @param alpha - from 0 to 1, fraction of a logic step since the last update
+     */
+    public void render(Graphics2D g2d, float alpha) {
+        render(g2d);
+    }
+
+    /**
+     * Adds the parts of the screen that will look different in the next
+     * frame, than they did in the last one. By default, the whole screen is
+     * redrawn every frame, so states only need to override this if they can
+     * tell what changed.
+     * @param region - region to add to
+     */
+    public void collectDirty(DirtyRegion region) {
+        region.addAll();
+    }
+
+    /**
+     * States that aren't animating only change because of input, a timer,
+     * or a state change, so the game loop doesn't have to run for them
+     * until one of those happens. By default, states are always animating.
+     * @return true if this state changes on its own, from frame to frame
+     */
+    public boolean isAnimating() {
+        return true;
+    }
+
 }
@@ -0,0 +1,71 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates pieces from a shuffled "bag" that holds one of every type. Once
+ * the bag is empty, it is refilled and shuffled again. This guarantees that
+ * every type is seen once in every count draws, so there are never long
+ * droughts of a single type. Draws are O(1), with an O(count) shuffle once
+ * per bag.
+ */
+public class BagGenerator implements PieceGenerator {
+    private final int count;
+    private final long seed;
+    private final int[] bag;    // types of the current bag, in the order they are drawn
+    private SplittableRandom rng;
+    private int index;          // next type to draw from the bag
+
+
+
+    /**
+     * Constructs a new bag generator.
+     * @param count - number of piece types, and the size of the bag
+     * @param seed - seed of the sequence
+     */
+    public BagGenerator(int count, long seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Piece count must be at least 1, not " + count);
+        }
+        this.count = count;
+        this.seed = seed;
+        bag = new int[count];
+        reset();
+    }
+
+    public int next() {
+        if (index == count) {
+            shuffle();
+        }
+        return bag[index++];
+    }
+
+    /**
+     * Refills the bag with every type, in a new random order.
+     */
+    private void shuffle() {
+        for (int i = 0; i < count; i++) {
+            bag[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--) {  // Fisher-Yates
+            int j = rng.nextInt(i + 1);
+            int type = bag[i];
+            bag[i] = bag[j];
+            bag[j] = type;
+        }
+        index = 0;
+    }
+
+    public void reset() {
+        rng = new SplittableRandom(seed);
+        shuffle();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
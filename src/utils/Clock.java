@@ -0,0 +1,19 @@
+package utils;
+
+/**
+ * Source of time for a GameEngine. The engine only measures how much time
+ * has passed between updates, so any clock will do, such as the system
+ * clock when playing, or a clock that a simulation moves forward itself.
+ */
+public interface Clock {
+
+    /**
+     * Clock that follows real time.
+     */
+    Clock SYSTEM = () -> System.nanoTime() / 1000000L;
+
+    /**
+     * @return current time, in milliseconds
+     */
+    long getMillis();
+}
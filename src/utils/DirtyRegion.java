@@ -0,0 +1,77 @@
+package utils;
+
+import java.awt.*;
+
+/**
+ * Collects the parts of the screen that have changed since the last frame,
+ * as the union of every region that is added to it, so that only that part
+ * needs to be redrawn. Anything that can't tell what it changed, such as a
+ * transition or a resize, marks the whole screen instead.
+ * *NOTE regions can be added from the EDT while the game loop is taking
+ * them, so every method is synchronized.
+ */
+public class DirtyRegion {
+    private final Rectangle bounds = new Rectangle();
+    private boolean isEmpty = true;     // has nothing been added since the last take?
+    private boolean isFull;             // has the whole screen been marked?
+
+
+
+    /**
+     * Adds a changed region.
+     * @param x - x pixel location
+     * @param y - y pixel location
+     * @param width - width of the region
+     * @param height - height of the region
+     */
+    public synchronized void add(int x, int y, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (isEmpty) {
+            bounds.setBounds(x, y, width, height);
+            isEmpty = false;
+        } else {
+            bounds.add(new Rectangle(x, y, width, height));
+        }
+    }
+
+    /**
+     * Adds a changed region.
+     * @param r - region that changed
+     */
+    public void add(Rectangle r) {
+        add(r.x, r.y, r.width, r.height);
+    }
+
+    /**
+     * Marks the whole screen as changed.
+     */
+    public synchronized void addAll() {
+        isFull = true;
+        isEmpty = false;
+    }
+
+    /**
+     * Takes everything that has been added, and starts over empty.
+     * @param width - width of the screen
+     * @param height - height of the screen
+     * @return the part of the screen to redraw, or null if nothing on it
+     * has changed
+     */
+    public synchronized Rectangle take(int width, int height) {
+        Rectangle screen = new Rectangle(0, 0, width, height);
+        Rectangle dirty = null;
+        if (isFull) {
+            dirty = screen;
+        } else if (!isEmpty) {
+            dirty = screen.intersection(bounds);
+        }
+        if (dirty != null && dirty.isEmpty()) {
+            dirty = null;   // off screen, or there is no screen yet
+        }
+        isEmpty = true;
+        isFull = false;
+        return dirty;
+    }
+}
@@ -1,8 +1,13 @@
 package utils;
 
+import main.Game;
 import managers.StateManager;
 import states.IntroState;
+import shapes.Tetrominoes.PieceSet;
+import shapes.Tetrominoes.Tetromino;
+import shapes.Tetrominoes.TileMap;
 import shapes.Tile;
+import shapes.TileSprites;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -10,32 +15,61 @@ import java.awt.image.BufferedImage;
 /**
  * Utility class to display stats about the game, such as the current level,
  * how many blocks have been dropped, and the total lines cleared, to the
- * left side of the screen.
+ * left side of the screen, along with a preview of the upcoming pieces.
+ * The info and the preview are drawn into an offscreen HUD image, which is
+ * only redrawn once a stat or the queue changes, so that most frames draw
+ * it with a single drawImage call, instead of laying out text. The image is
+ * opaque, with the same black background as the PlayState, so it must be
+ * drawn before the grid, in case the two overlap.
  * Created by David Kramer on 2/9/2016.
  */
 public class GameDisplay implements Animation {
-    private static Font font = new Font("Courier New", Font.PLAIN, 20);
-    private static String curLevel;
-    private static String blocksDropped;
-    private static String linesCleared;
+    private static final Font FONT = new Font("Courier New", Font.PLAIN, 20);
+    private static final Font DEBUG_FONT = new Font("Courier New", Font.PLAIN, 12);
+    private static final int PREVIEW_COUNT = 3;     // upcoming pieces to show, at most GameEngine.QUEUE_SIZE
+    private static final int LINE_WIDTH = FONT.getSize() * 20;  // wider than any info line, in a monospaced font
+    private static final int PREVIEW_Y = 450;       // baseline of the preview label
+    private static final int HUD_Y = 300 - FONT.getSize() * 3 / 2;  // top of the HUD image, above the first info line
 
-    private static BufferedImage logoImg;
-    private static int levelUpCount;    // keep track of when we can advance to the next level
-    private static int levelNum;
-    private static int dropCount;
-    private static int clearCount;
-    private static int xOffset; // offset for text and gfx
+    private final Game game;        // game being displayed
+    private final GameStats stats;  // stats of the game being displayed
+    private String curLevel;
+    private String blocksDropped;
+    private String linesCleared;
+    private int shownLevel = -1;    // stat values that the strings above were built from
+    private int shownDrops = -1;
+    private int shownClears = -1;
+    private final int[] shownPreview = new int[PREVIEW_COUNT];  // piece types that the preview last drew
+    private boolean shownDebug;     // was the debug status drawn last frame?
+    private int shownXOffset;       // xOffset that everything was last drawn at
 
+    private BufferedImage logoImg;
+    private BufferedImage hudImg;   // info and preview, only redrawn when they change
+    private int hudTileWidth;       // tile width that the preview in hudImg was drawn at
+    private int hudWidth;           // part of hudImg that was drawn on, which is all that is drawn from it
+    private int hudHeight;
+    private int xOffset; // offset for text and gfx
 
 
 
+
+    /**
+     * Constructs a new display for the stats of a single game.
+     * @param game - game to display
+     */
+    public GameDisplay(Game game) {
+        this.game = game;
+        this.stats = game.getStats();
+        reset();
+    }
+
     /**
      * Renders everything to the screen.
      * @param g2d
      */
-    public static void render(Graphics2D g2d) {
+    public void render(Graphics2D g2d) {
         drawLogo(g2d);
-        drawInfo(g2d);
+        drawHud(g2d);
         drawDebugStatus(g2d);
     }
 
@@ -43,133 +77,241 @@ public class GameDisplay implements Animation {
      * Draws the logo to the screen.
      * @param g2d
      */
-    private static void drawLogo(Graphics2D g2d) {
+    private void drawLogo(Graphics2D g2d) {
+        shownXOffset = xOffset;
         g2d.drawImage(logoImg, xOffset, 50, null);
     }
 
     /**
-     * Draws information about the current game such as the level,
-     * amount of blocks dropped, and the total lines cleared.
+     * Draws the HUD image, first redrawing it if anything on it has changed.
+     * Sliding in and out only moves the image, so it isn't redrawn for that.
      * @param g2d
      */
-    private static void drawInfo(Graphics2D g2d) {
-        g2d.setColor(Color.CYAN);
-        g2d.setFont(font);
-        g2d.drawString(curLevel, xOffset, 300);
-        g2d.drawString(blocksDropped, xOffset, 350);
-        g2d.drawString(linesCleared, xOffset, 400);
+    private void drawHud(Graphics2D g2d) {
+        if (isHudChanged()) {
+            updateHud();
+        }
+        g2d.drawImage(hudImg, xOffset, HUD_Y, xOffset + hudWidth, HUD_Y + hudHeight,
+                      0, 0, hudWidth, hudHeight, null);
     }
 
     /**
-     * If debug is turned on, this will draw an indicator.
-     * @param g2d
+     * @return true if the stats, the queue or the tile size have changed,
+     * since the HUD image was last drawn
      */
-    private static void drawDebugStatus(Graphics2D g2d) {
-        if (Tile.isShowDebug()) {
-            g2d.setFont(new Font("Courier New", Font.PLAIN, 12));
-            String text = "SHOW_DEBUG: true  Toggle: F4";
-            Dimension size = StateManager.getActiveState().getSize();
-            int x = size.width - g2d.getFontMetrics().stringWidth(text) - 40;
-            int y = 20;
-            g2d.drawString(text, x, y);
+    private boolean isHudChanged() {
+        if (hudImg == null || hudTileWidth != Tile.WIDTH || shownLevel != stats.getLevelNum()
+                || shownDrops != stats.getDropCount() || shownClears != stats.getClearCount()) {
+            return true;
+        }
+        for (int i = 0; i < PREVIEW_COUNT; i++) {
+            if (shownPreview[i] != game.getEngine().peek(i)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
-     * Resets all the current game information back to the default values
+     * Redraws the HUD image. Opaque images are by far the cheapest to draw,
+     * so it has a black background instead of being see-through. The image
+     * is big enough for any info and preview, but only the part that was
+     * drawn on is ever drawn from it. The preview scales with the tiles, so
+     * the image is only created again when the tile size changes.
      */
-    public static void reset() {
-        xOffset = -125;
-        levelNum = 0;
-        dropCount = 0;
-        clearCount = 0;
-        levelUpCount = 0;
-        curLevel = "Level: " + levelNum;
-        blocksDropped = "Dropped: " + dropCount;
-        linesCleared = "Cleared: " + clearCount;
-        logoImg = IntroState.getLogo();
-        animateIn();
+    private void updateHud() {
+        if (hudImg == null || hudTileWidth != Tile.WIDTH) {
+            int size = getPreviewSize();
+            int width = Math.max(LINE_WIDTH, TileMap.MAX_SIZE * size + 1);
+            int height = PREVIEW_Y - HUD_Y + 15 + PREVIEW_COUNT * (TileMap.MAX_SIZE + 1) * size + 1;
+            hudImg = TileSprites.createCompatibleImage(width, height, Transparency.OPAQUE);
+            hudTileWidth = Tile.WIDTH;
+        }
+        Graphics2D g2d = hudImg.createGraphics();
+        try {
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(0, 0, hudImg.getWidth(), hudImg.getHeight());
+            g2d.translate(0, -HUD_Y);
+            int infoWidth = drawInfo(g2d, 0);
+            int previewBottom = drawPreview(g2d, 0);
+            hudWidth = Math.min(Math.max(infoWidth, TileMap.MAX_SIZE * getPreviewSize() + 1), hudImg.getWidth());
+            hudHeight = Math.min(previewBottom - HUD_Y, hudImg.getHeight());
+        } finally {
+            g2d.dispose();
+        }
     }
 
     /**
-     * Properties to be adjusted via animation in.
+     * Draws information about the current game such as the level,
+     * amount of blocks dropped, and the total lines cleared.
+     * @param g2d
+     * @param x - x location to draw at
+     * @return width of the widest line
      */
-    public static void animateIn() {
-        xOffset++;
-        if (xOffset >= 30) {
-            xOffset = 30;
-        }
+    private int drawInfo(Graphics2D g2d, int x) {
+        updateText();
+        g2d.setColor(Color.CYAN);
+        g2d.setFont(FONT);
+        g2d.drawString(curLevel, x, 300);
+        g2d.drawString(blocksDropped, x, 350);
+        g2d.drawString(linesCleared, x, 400);
+        FontMetrics metrics = g2d.getFontMetrics();
+        return Math.max(metrics.stringWidth(curLevel),
+                        Math.max(metrics.stringWidth(blocksDropped), metrics.stringWidth(linesCleared)));
     }
 
     /**
-     * Properties to be adjusted via animation out.
+     * Rebuilds the info strings, only for the stats that have changed since
+     * they were last drawn.
      */
-    public static void animateOut() {
-        xOffset -= 2;
+    private void updateText() {
+        if (shownLevel != stats.getLevelNum()) {
+            shownLevel = stats.getLevelNum();
+            curLevel = "Level: " + shownLevel;
+        }
+        if (shownDrops != stats.getDropCount()) {
+            shownDrops = stats.getDropCount();
+            blocksDropped = "Dropped: " + shownDrops;
+        }
+        if (shownClears != stats.getClearCount()) {
+            shownClears = stats.getClearCount();
+            linesCleared = "Cleared: " + shownClears;
+        }
     }
 
     /**
-     * Increases the level display indicator by one.
+     * Draws the upcoming pieces, at a third of the tile size, below the
+     * info. They are read straight from the engine's queue.
+     * @param g2d
+     * @param x - x location to draw at
+     * @return y location just below the last piece
      */
-    public static void increaseLevel() {
-        if (levelNum + 1 < Speeds.LEVELS.length) {
-            levelNum++;
-            curLevel = "Level: " + levelNum;
-            levelUpCount = 0;
+    private int drawPreview(Graphics2D g2d, int x) {
+        PieceSet pieceSet = game.getPieceSet();
+        int size = getPreviewSize();
+        int y = PREVIEW_Y;
+        g2d.setColor(Color.CYAN);
+        g2d.setFont(FONT);
+        g2d.drawString("Next:", x, y);
+        y += 15;
+
+        for (int i = 0; i < PREVIEW_COUNT; i++) {
+            int type = game.getEngine().peek(i);
+            shownPreview[i] = type;
+            TileMap tileMap = pieceSet.getTileMap(type, Tetromino.ORIENTATION_NORTH);
+            int minCol = 0;
+            int minRow = 0;
+            int maxRow = 0;
+            for (int cell = 0; cell < tileMap.getCellCount(); cell++) {
+                minCol = Math.min(minCol, tileMap.getCellCol(cell));
+                minRow = Math.min(minRow, tileMap.getCellRow(cell));
+                maxRow = Math.max(maxRow, tileMap.getCellRow(cell));
+            }
+            for (int cell = 0; cell < tileMap.getCellCount(); cell++) {
+                Tile.drawAt(g2d, pieceSet.getColor(type),
+                            x + (tileMap.getCellCol(cell) - minCol) * size,
+                            y + (tileMap.getCellRow(cell) - minRow) * size, size, size);
+            }
+            y += (maxRow - minRow + 2) * size;
         }
+        return y - size + 1;    // outlines cover one extra pixel at the bottom
     }
 
     /**
-     * Sets the level display indicator to the specified level.
-     * @param level - Level num to display
+     * @return size of the tiles in the preview, a third of the tile size
      */
-    public static void setLevel(int level) {
-        levelNum = level;
-        curLevel = "Level: " + levelNum;
-        levelUpCount = 0;
+    private int getPreviewSize() {
+        return Math.max(Tile.WIDTH / 3, 1);
+    }
+
+    /**
+     * If debug is turned on, this will draw an indicator.
+     * @param g2d
+     */
+    private void drawDebugStatus(Graphics2D g2d) {
+        shownDebug = Tile.isShowDebug();
+        if (shownDebug) {
+            g2d.setFont(DEBUG_FONT);
+            String text = "SHOW_DEBUG: true  Toggle: F4";
+            Dimension size = StateManager.getActiveState().getSize();
+            int x = size.width - g2d.getFontMetrics().stringWidth(text) - 40;
+            int y = 20;
+            g2d.drawString(text, x, y);
+        }
     }
 
     /**
-     * @return the current level num
+     * Adds the parts of the screen that this display will draw differently
+     * in the next frame, than in the last one: any info line whose stat has
+     * changed, and the preview once the queue moves along. Sliding in or out,
+     * and toggling the debug status, change everything.
+     * This must be called from the same thread as render().
+     * @param region - region to add to
      */
-    public static int getLevelNum() {
-        return levelNum;
+    public void collectDirty(DirtyRegion region) {
+        if (shownLevel < 0 || shownXOffset != xOffset || shownDebug != Tile.isShowDebug()) {
+            region.addAll();
+            return;
+        }
+        if (shownLevel != stats.getLevelNum()) {
+            addLine(region, 300);
+        }
+        if (shownDrops != stats.getDropCount()) {
+            addLine(region, 350);
+        }
+        if (shownClears != stats.getClearCount()) {
+            addLine(region, 400);
+        }
+        for (int i = 0; i < PREVIEW_COUNT; i++) {
+            if (shownPreview[i] != game.getEngine().peek(i)) {
+                int size = getPreviewSize();
+                int height = 15 + PREVIEW_COUNT * (TileMap.MAX_SIZE + 1) * size;
+                region.add(xOffset, PREVIEW_Y, Math.max(TileMap.MAX_SIZE * size + 1, LINE_WIDTH), height);
+                break;
+            }
+        }
     }
 
     /**
-     * Increases the total line clear amount by the specified value
-     * @param linesClears - amount of line clears to add
+     * Adds an info line to a dirty region.
+     * @param region - region to add to
+     * @param baseline - y location that the line is drawn at
      */
-    public static void increaseLineCount(int linesClears) {
-        clearCount += linesClears;
-        levelUpCount += linesClears;
-        linesCleared = "Cleared: " + clearCount;
-        System.out.println("LEVEL UP COUNT: " + levelUpCount);
+    private void addLine(DirtyRegion region, int baseline) {
+        region.add(xOffset, baseline - FONT.getSize(), LINE_WIDTH, FONT.getSize() * 3 / 2);
     }
 
     /**
-     * @return the total line clear count
+     * Resets the display back to its starting position. The stats
+     * themselves are reset by their Game.
      */
-    public static int getClearCount() {
-        return clearCount;
+    public void reset() {
+        xOffset = -125;
+        logoImg = IntroState.getLogo();
+        animateIn();
     }
 
     /**
-     * Increases the block drop display indicator by one.
+     * Properties to be adjusted via animation in.
      */
-    public static void increaseBlockDrop() {
-        dropCount++;
-        blocksDropped = "Dropped: " + dropCount;
+    public void animateIn() {
+        xOffset++;
+        if (xOffset >= 30) {
+            xOffset = 30;
+        }
     }
 
     /**
-     * @return the total block drop count
+     * Properties to be adjusted via animation out.
      */
-    public static int getDropCount() {
-        return dropCount;
+    public void animateOut() {
+        xOffset -= 2;
     }
 
-    public static int getLevelUpCount() {
-        return levelUpCount;
+    /**
+     * @return the stats being displayed
+     */
+    public GameStats getStats() {
+        return stats;
     }
 }
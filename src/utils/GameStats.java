@@ -0,0 +1,89 @@
+package utils;
+
+/**
+ * Stats about a single game, such as the current level, how many blocks have
+ * been dropped, and the total lines cleared. Every Game keeps its own stats,
+ * so that any number of games can be played at once.
+ */
+public class GameStats {
+    private int levelUpCount;   // keep track of when we can advance to the next level
+    private int levelNum;
+    private int dropCount;
+    private int clearCount;
+
+
+
+
+    /**
+     * Resets all the stats back to the default values
+     */
+    public void reset() {
+        levelNum = 0;
+        dropCount = 0;
+        clearCount = 0;
+        levelUpCount = 0;
+    }
+
+    /**
+     * Increases the level by one, if there is a next level.
+     */
+    public void increaseLevel() {
+        if (levelNum + 1 < Speeds.LEVELS.length) {
+            levelNum++;
+            levelUpCount = 0;
+        }
+    }
+
+    /**
+     * Sets the current level.
+     * @param level - Level num
+     */
+    public void setLevel(int level) {
+        levelNum = level;
+        levelUpCount = 0;
+    }
+
+    /**
+     * @return the current level num
+     */
+    public int getLevelNum() {
+        return levelNum;
+    }
+
+    /**
+     * Increases the total line clear amount by the specified value
+     * @param linesClears - amount of line clears to add
+     */
+    public void increaseLineCount(int linesClears) {
+        clearCount += linesClears;
+        levelUpCount += linesClears;
+    }
+
+    /**
+     * @return the total line clear count
+     */
+    public int getClearCount() {
+        return clearCount;
+    }
+
+    /**
+     * Increases the block drop count by one.
+     */
+    public void increaseBlockDrop() {
+        dropCount++;
+    }
+
+    /**
+     * @return the total block drop count
+     */
+    public int getDropCount() {
+        return dropCount;
+    }
+
+    /**
+     * @return lines cleared since the last level up
+     */
+    public int getLevelUpCount() {
+        return levelUpCount;
+    }
+}
@@ -14,7 +14,7 @@ import java.util.Random;
  * Created by David Kramer on 2/10/2016.
  */
 public class GameUtils {
-    public static Random rng = new Random();
+    private static final Random rng = new Random();
 
 
     /**
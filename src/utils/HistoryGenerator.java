@@ -0,0 +1,89 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates pieces that aren't a recent duplicate, which prevents frequently
+ * spawning the same type consecutively. Types that were spawned since the
+ * history was last reset, are excluded from the next draw. The history is
+ * reset once it is full, which by default is once every type has been
+ * spawned. Rather than retrying random draws until one isn't in the history,
+ * a single draw is made from only the types that are still allowed, so every
+ * draw costs the same, however full the history is.
+ */
+public class HistoryGenerator implements PieceGenerator {
+    private final int count;
+    private final long seed;
+    private final int historyLength;    // types spawned before the history is reset
+    private final boolean[] isRecent;   // indexed by type, is the type in the history?
+    private SplittableRandom rng;
+    private int historySize;            // number of types in the history
+
+
+
+    /**
+     * Constructs a new history generator, that remembers every type.
+     * @param count - number of piece types to choose from
+     * @param seed - seed of the sequence
+     */
+    public HistoryGenerator(int count, long seed) {
+        this(count, count, seed);
+    }
+
+    /**
+     * Constructs a new history generator.
+     * @param count - number of piece types to choose from
+     * @param historyLength - types spawned before the history is reset, from 1 to count
+     * @param seed - seed of the sequence
+     */
+    public HistoryGenerator(int count, int historyLength, long seed) {
+        if (count < 1 || historyLength < 1 || historyLength > count) {
+            throw new IllegalArgumentException("Invalid history of " + historyLength + " for " + count + " pieces");
+        }
+        this.count = count;
+        this.historyLength = historyLength;
+        this.seed = seed;
+        isRecent = new boolean[count + 1];
+        reset();
+    }
+
+    public int next() {
+        if (historySize == historyLength) {
+            clearHistory();
+        }
+        int skip = rng.nextInt(count - historySize);   // pick among the allowed types only
+        int choice = 0;
+        do {
+            choice++;
+            if (!isRecent[choice]) {
+                skip--;
+            }
+        } while (skip >= 0);
+        isRecent[choice] = true;
+        historySize++;
+        return choice;
+    }
+
+    /**
+     * Allows every type to be drawn again.
+     */
+    private void clearHistory() {
+        for (int i = 0; i < isRecent.length; i++) {
+            isRecent[i] = false;
+        }
+        historySize = 0;
+    }
+
+    public void reset() {
+        rng = new SplittableRandom(seed);
+        clearHistory();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -28,8 +28,15 @@ public class KeyboardUtil implements KeyListener {
         return initialized;
     }
 
+    /**
+     * Passes the key press on to the active state, then wakes the game
+     * loop, in case it was idle. Waking after the state has handled the key
+     * covers anything that the key changed, even after a modal dialog.
+     * @param e
+     */
     public void keyPressed(KeyEvent e) {
         StateManager.getActiveState().keyPressed(e);
+        StateManager.wake();
     }
 
     // unused methods
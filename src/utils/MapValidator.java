@@ -21,6 +21,27 @@ public class MapValidator {
      * @return true if valid, false otherwise
      */
     public static boolean validate(int[][] arr) {
+        return validate(arr, TileMap.TILE_COUNT);
+    }
+
+    /**
+     * Validates a tile map array of a piece that is made up of the specified
+     * number of tiles. The array must be square, no larger than
+     * TileMap.MAX_SIZE, and hold exactly ONE pivot tile along with
+     * cellCount - 1 regular tiles, all connected to each other. If any of
+     * these rules are violated, this method will display information so that
+     * it can be corrected.
+     * @param arr - array to check
+     * @param cellCount - number of tiles that the piece is made up of
+     * @return true if valid, false otherwise
+     */
+    public static boolean validate(int[][] arr, int cellCount) {
+        if (arr == null || arr.length == 0 || arr.length > TileMap.MAX_SIZE) {
+            System.out.println("Tile map array must have between 1 and " + TileMap.MAX_SIZE + " rows");
+            return false;
+        }
+        int size = arr.length;
+        BadTiles[] tiles = new BadTiles[(size * size) + 1];
         int regCount = 0;   // number of regular tiles
         int pivCount = 0;   // number of pivot tiles
         int badCount = 0;   // number of bad tiles
@@ -28,30 +49,87 @@ public class MapValidator {
 
         // check each tile in the array, and make sure the rules are followed
         // if rules are violated, a "BadTiles" is added!
-        for (int col = 0; col < TileMap.TILE_COUNT; col++) {
-            for (int row = 0; row < TileMap.TILE_COUNT; row++) {
+        for (int col = 0; col < size; col++) {
+            if (arr[col] == null || arr[col].length != size) {
+                System.out.println("Tile map array must be square, " + size + " x " + size);
+                return false;
+            }
+            for (int row = 0; row < size; row++) {
                 if (arr[col][row] == Tile.REGULAR) {
                     regCount++;
-                    if (regCount > BadTiles.MAX_REG) {
-                        BadTiles.add(badCount++, BadTiles.TYPE_EXCESS_TILE, col, row);
+                    if (regCount > cellCount - 1) {
+                        tiles[badCount++] = new BadTiles(BadTiles.TYPE_EXCESS_TILE, col, row);
                     }
                 } else if (arr[col][row] == Tile.PIVOT) {
                     pivCount++;
                     if (pivCount > BadTiles.MAX_PIV) {
-                        BadTiles.add(badCount++, BadTiles.TYPE_MULTI_PIVOT, col, row);
+                        tiles[badCount++] = new BadTiles(BadTiles.TYPE_MULTI_PIVOT, col, row);
                     }
                 } else if (arr[col][row] != Tile.EMPTY) {
-                    BadTiles.add(badCount++, BadTiles.TYPE_INVALID_TYPE, col, row);
+                    tiles[badCount++] = new BadTiles(BadTiles.TYPE_INVALID_TYPE, col, row);
                 }
             }
         }
+        if (pivCount == 0 || regCount < cellCount - 1) {
+            tiles[badCount++] = new BadTiles(BadTiles.TYPE_MISSING_TILE, -1, -1);
+        }
+        if (badCount == 0) {
+            badCount = checkConnected(arr, tiles);
+        }
 
         if (badCount > 0) {
-            BadTiles.displayInfo();
+            BadTiles.displayInfo(tiles);
             success = false;
         }
         return success;
     }
+
+    /**
+     * Every tile of a piece must be connected to the pivot tile, through
+     * tiles that share an edge. Pieces that are split apart can't be
+     * dropped along the skyline, since some of their columns would be empty.
+     * @param arr - square array to check, with exactly one pivot tile
+     * @param tiles - bad tiles array, to add any unconnected tiles to
+     * @return number of bad tiles that were found
+     */
+    private static int checkConnected(int[][] arr, BadTiles[] tiles) {
+        int size = arr.length;
+        boolean[][] reached = new boolean[size][size];
+        int[] stack = new int[size * size];
+        int stackSize = 0;
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                if (arr[col][row] == Tile.PIVOT) {
+                    reached[col][row] = true;
+                    stack[stackSize++] = (col * size) + row;
+                }
+            }
+        }
+        while (stackSize > 0) {
+            int cell = stack[--stackSize];
+            int col = cell / size;
+            int row = cell % size;
+            for (int i = 0; i < 4; i++) {
+                int nextCol = col + ((i == 0) ? -1 : (i == 1) ? 1 : 0);
+                int nextRow = row + ((i == 2) ? -1 : (i == 3) ? 1 : 0);
+                if (nextCol >= 0 && nextCol < size && nextRow >= 0 && nextRow < size
+                        && !reached[nextCol][nextRow] && arr[nextCol][nextRow] != Tile.EMPTY) {
+                    reached[nextCol][nextRow] = true;
+                    stack[stackSize++] = (nextCol * size) + nextRow;
+                }
+            }
+        }
+
+        int badCount = 0;
+        for (int col = 0; col < size; col++) {
+            for (int row = 0; row < size; row++) {
+                if (arr[col][row] != Tile.EMPTY && !reached[col][row]) {
+                    tiles[badCount++] = new BadTiles(BadTiles.TYPE_DISCONNECTED, col, row);
+                }
+            }
+        }
+        return badCount;
+    }
 }
 
 /**
@@ -59,40 +137,30 @@ public class MapValidator {
  * about invalid tiles, from an int[][] map array.
  */
 class BadTiles {
-    static final int MAX_REG = 3;
     static final int MAX_PIV = 1;
 
     static final String TYPE_MULTI_PIVOT    = "Multiple Pivot Tile";
     static final String TYPE_EXCESS_TILE    = "Excess Tile";
     static final String TYPE_INVALID_TYPE   = "Invalid Tile Type";
-
-    static BadTiles[] tiles = new BadTiles[TileMap.TILE_COUNT * TileMap.TILE_COUNT];
+    static final String TYPE_MISSING_TILE   = "Missing Tile";
+    static final String TYPE_DISCONNECTED   = "Disconnected Tile";
 
     String type;
     Point ptIndex;
 
-    static void add(int index, String type, int col, int row) {
-        tiles[index] = new BadTiles(type, col, row);
-    }
-
-    // private constructors --> use add method instead
-    private BadTiles(String type, Point ptIndex) {
-        this.type = type;
-        this.ptIndex = ptIndex;
-    }
-
-    private BadTiles(String type, int col, int row) {
+    BadTiles(String type, int col, int row) {
         this.type = type;
         this.ptIndex = new Point(col, row);
     }
 
     /**
      * Displays all information stored in the BadTiles array.
+     * @param tiles - bad tiles found in a single map array
      */
-    static void displayInfo() {
+    static void displayInfo(BadTiles[] tiles) {
         for (int i = 0; i < tiles.length; i++) {
             if (tiles[i] != null) {
-                System.out.println(getInfo(i));
+                System.out.println(getInfo(tiles, i));
             } else {
                 break;
             }
@@ -101,10 +169,11 @@ class BadTiles {
 
     /**
      * Displays info about a tile in the BadTiles[] array at the specified index.
+     * @param tiles - bad tiles found in a single map array
      * @param index - index location
      * @return String containing information about the pt.
      */
-    public static String getInfo(int index) {
+    public static String getInfo(BadTiles[] tiles, int index) {
         String type = tiles[index].getType();
         Point pt = tiles[index].getPtIndex();
         String info = String.format("Bad Tile #%d --> Type: %s at [%d, %d] in map array",
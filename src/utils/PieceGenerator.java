@@ -0,0 +1,38 @@
+package utils;
+
+/**
+ * Decides which type of piece is spawned next. Every generator is created
+ * from a seed, which can be recorded, so that the same seed and piece count
+ * always produce the exact same sequence of pieces. This lets a game, or a
+ * benchmark, be reproduced exactly.
+ */
+public interface PieceGenerator {
+
+    /**
+     * @return the next type of piece, from 1 to getCount()
+     */
+    int next();
+
+    /**
+     * Starts the sequence over, from the beginning, so that it produces
+     * the same pieces again.
+     */
+    void reset();
+
+    /**
+     * @return the seed that this generator was created from
+     */
+    long getSeed();
+
+    /**
+     * @return number of piece types that this generator chooses from
+     */
+    int getCount();
+
+    /**
+     * @return a new seed, for a game that doesn't need to be reproduced
+     */
+    static long newSeed() {
+        return System.nanoTime() ^ Thread.currentThread().getId();
+    }
+}
@@ -5,6 +5,7 @@ import managers.StateManager;
 import shapes.Grid;
 import shapes.Tile;
 import states.PlayState;
+import states.State;
 
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
@@ -16,9 +17,8 @@ import java.awt.event.ComponentListener;
  * space in the application.
  * Created by David Kramer on 2/8/2016.
  */
-public class ResizeUtility extends GameUtility implements ComponentListener {
+public class ResizeUtility implements ComponentListener {
     private static App app;
-    private static PlayState playState;    // main playing state of the app
 
 
     private ResizeUtility() {}   // don't instantiate directly, use init()
@@ -42,6 +42,7 @@ public class ResizeUtility extends GameUtility implements ComponentListener {
     public static void updateOffsets() {
         Tile.setGlobalScale(getScaleFactor());
         Tile.setGlobalOffsets(getXOffset() + 75, getYOffset());
+        StateManager.repaintAll();
     }
 
     /**
@@ -49,7 +50,7 @@ public class ResizeUtility extends GameUtility implements ComponentListener {
      * @return the correct xOffset for the grid
      */
     private static int getXOffset() {
-        int gridWidth = Grid.COL_COUNT * Tile.WIDTH;
+        int gridWidth = getColCount() * Tile.WIDTH;
         int xOffset = (StateManager.getActiveState().getWidth() - gridWidth) / 2;
         return xOffset;
     }
@@ -59,11 +60,37 @@ public class ResizeUtility extends GameUtility implements ComponentListener {
      * @return the correct yOffset for the grid
      */
     private static int getYOffset() {
-        int gridHeight = Grid.ROW_COUNT * Tile.HEIGHT;
+        int gridHeight = getRowCount() * Tile.HEIGHT;
         int yOffset = (StateManager.getActiveState().getHeight() - gridHeight) / 2;
         return yOffset;
     }
 
+    /**
+     * @return number of columns in the active grid, or the default
+     * if there isn't a grid yet
+     */
+    private static int getColCount() {
+        Grid grid = getActiveGrid();
+        return (grid != null) ? grid.getColCount() : Grid.DEFAULT_COL_COUNT;
+    }
+
+    /**
+     * @return number of rows in the active grid, or the default
+     * if there isn't a grid yet
+     */
+    private static int getRowCount() {
+        Grid grid = getActiveGrid();
+        return (grid != null) ? grid.getRowCount() : Grid.DEFAULT_ROW_COUNT;
+    }
+
+    /**
+     * @return grid of the active PlayState, or null if a game isn't being played
+     */
+    private static Grid getActiveGrid() {
+        State state = StateManager.getActiveState();
+        return (state instanceof PlayState) ? ((PlayState)state).getGrid() : null;
+    }
+
     /**
      *
      * @return the correct scale factor for tiles in the grid
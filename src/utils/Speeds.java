@@ -10,7 +10,7 @@ public final class Speeds {
 
     /**
      * Drop-speed constants. These speeds are delays in milliseconds and
-     * useful for the Spawner. Such that, depending on the speed set,
+     * useful for the GameEngine. Such that, depending on the speed set,
      * the falling Tetromino will drop ONE level.
      */
     private static final int LEVEL_0     = 1500;
@@ -39,7 +39,7 @@ public final class Speeds {
     public static final int CLEAR       = 250;
     public static final int SPAWN_WAIT  = 250;
     public static final int FINAL_MOVE  = 750;
-    public static final int DROP        = 40;
+    public static final int DROP        = 40;  // per row, for sliding a hard drop into place
 
 
     private Speeds() {} // prevent instantiation
@@ -3,23 +3,32 @@ package utils;
 import java.awt.event.ActionListener;
 import javax.swing.Timer;
 
-import shapes.Grid;
-import shapes.GridTile;
+import managers.StateManager;
 
 /**
  * This utility class provides an easy access SwingTimer
  * which can be useful for times when animation is needed.
+ * Each owner, such as a State, keeps its own TimerUtil, so
+ * that separate animations never cancel each other out.
  * Created by David Kramer on 2/10/2016.
  */
 public class TimerUtil {
-    private static Timer timer;
-    private static GridTile[] tilesToAnimate; //TODO MOVE THIS ELSEWHERE
-    private static int index;
+    private Timer timer;
 
 
-    public static void setAction(int delay, boolean startNow, ActionListener action) {
+    /**
+     * Sets the action of the timer, replacing any previous one. The game
+     * loop is woken after every run of the action, in case it was idle.
+     * @param delay - milliseconds between each run of the action
+     * @param startNow - should the timer be started right away?
+     * @param action - action to run
+     */
+    public void setAction(int delay, boolean startNow, ActionListener action) {
         clearTimer();
-        timer = new Timer(delay, action);
+        timer = new Timer(delay, e -> {
+            action.actionPerformed(e);
+            StateManager.wake();
+        });
 
         if (startNow) {
             timer.start();
@@ -29,7 +38,7 @@ public class TimerUtil {
     /**
      * Starts the timer
      */
-    public static void start() {
+    public void start() {
         if (timer != null) {
             timer.start();
         }
@@ -38,7 +47,7 @@ public class TimerUtil {
     /**
      * Stops the timer
      */
-    public static void stop() {
+    public void stop() {
         if (timer != null) {
             timer.stop();
         }
@@ -47,7 +56,7 @@ public class TimerUtil {
     /**
      * Clears the timer from any previous actions.
      */
-    private static void clearTimer() {
+    private void clearTimer() {
         if (timer != null) {
             timer.stop();
             for (ActionListener action: timer.getActionListeners()) {
@@ -59,7 +68,7 @@ public class TimerUtil {
     /**
      * @return true if this timer is running
      */
-    public static boolean isRunning() {
+    public boolean isRunning() {
         boolean isRunning = false;
         if (timer != null) {
             isRunning = timer.isRunning();
@@ -67,20 +76,4 @@ public class TimerUtil {
         return isRunning;
     }
 
-    public static void animateClear(GridTile[] _gridTiles, Grid grid) {
-        tilesToAnimate = _gridTiles;
-        index = 0;
-
-        setAction(20, true, e -> {
-            if (index >= tilesToAnimate.length) {
-                stop();
-                grid.updateShiftTiles();
-            } else {
-                GridTile t = tilesToAnimate[index];
-                t.clear();
-                index++;
-            }
-        });
-    }
-
 }
@@ -0,0 +1,45 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates pieces uniformly at random, where every type is equally likely
+ * on every draw, no matter what came before it.
+ */
+public class UniformGenerator implements PieceGenerator {
+    private final int count;
+    private final long seed;
+    private SplittableRandom rng;
+
+
+
+    /**
+     * Constructs a new uniform generator.
+     * @param count - number of piece types to choose from
+     * @param seed - seed of the sequence
+     */
+    public UniformGenerator(int count, long seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Piece count must be at least 1, not " + count);
+        }
+        this.count = count;
+        this.seed = seed;
+        reset();
+    }
+
+    public int next() {
+        return rng.nextInt(count) + 1;
+    }
+
+    public void reset() {
+        rng = new SplittableRandom(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
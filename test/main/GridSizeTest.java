@@ -0,0 +1,58 @@
+package main;
+
+import shapes.Grid;
+import shapes.Tetrominoes.PieceSet;
+import utils.HistoryGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Headless check that a game refuses a grid that is too small for its piece
+ * set, and accepts one that every piece can spawn in. Run it from the
+ * project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out main.GridSizeTest
+ *
+ * It exits with a non-zero status if any grid size is handled wrong.
+ */
+public class GridSizeTest {
+
+    public static void main(String[] args) throws IOException {
+        PieceSet pentominoes = PieceSet.load(new File("res/pieces/pentominoes.txt"));
+        PieceSet monominoes = PieceSet.load(new File("res/pieces/monominoes.txt"));
+
+        check(PieceSet.STANDARD, 5, 4, true);
+        check(PieceSet.STANDARD, 4, 4, false);  // J spawns with its tiles in cols 2 to 4
+        check(monominoes, 4, 4, true);
+        check(pentominoes, Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT, true);
+        check(pentominoes, 4, Grid.DEFAULT_ROW_COUNT, false);
+        check(pentominoes, Grid.DEFAULT_COL_COUNT, 4, false);
+        System.out.println("OK");
+    }
+
+    /**
+     * @param set - pieces to play with
+     * @param colCount - number of columns in the grid
+     * @param rowCount - number of rows in the grid
+     * @param isValid - should the game accept the grid
+     */
+    private static void check(PieceSet set, int colCount, int rowCount, boolean isValid) {
+        boolean isAccepted = true;
+        try {
+            new Game(colCount, rowCount, 0, set, new HistoryGenerator(set.getCount(), 1));
+        } catch (IllegalArgumentException e) {
+            isAccepted = false;
+        }
+        if (isAccepted != isValid) {
+            fail(set.getName() + " on a (" + colCount + " x " + rowCount + ") grid was "
+                 + (isAccepted ? "accepted" : "refused"));
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        System.exit(1);
+    }
+}
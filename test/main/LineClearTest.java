@@ -0,0 +1,108 @@
+package main;
+
+import shapes.Grid;
+import shapes.Tetrominoes.PieceSet;
+import shapes.Tetrominoes.Tetromino;
+import shapes.Tile;
+import utils.HistoryGenerator;
+import utils.Speeds;
+
+import java.awt.*;
+
+/**
+ * Headless check that a default game clears a full row on the same step that
+ * the piece filling it is locked in, and that the rows above have already
+ * shifted down by the time the next piece spawns. Clears are still animated,
+ * but only when drawn. Run it from the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out main.LineClearTest
+ *
+ * It exits with a non-zero status if any clear is late.
+ */
+public class LineClearTest {
+    private static final int SEED_COUNT = 50;
+
+    public static void main(String[] args) {
+        for (long seed = 0; seed < SEED_COUNT; seed++) {
+            String error = checkClear(seed);
+            if (error != null) {
+                fail("seed " + seed + ": " + error);
+            }
+        }
+        System.out.println("OK " + SEED_COUNT + " seeds");
+    }
+
+    /**
+     * Hard drops the first piece of a game onto a bottom row, that is full
+     * except for exactly where that piece lands.
+     * @param seed - seed of the piece order
+     * @return why the clear went wrong, or null if it didn't
+     */
+    private static String checkClear(long seed) {
+        boolean[] landed = findLanding(seed);
+        Game game = createGame(seed);
+        Grid grid = game.getGrid();
+        int bottomRow = Grid.DEFAULT_ROW_COUNT - 1;
+        int landedCount = 0;
+        for (int col = 0; col < Grid.DEFAULT_COL_COUNT; col++) {
+            if (landed[col]) {
+                landedCount++;
+            } else {
+                grid.get(col, bottomRow).setPartialShapeTile(new Tile(Color.GRAY, false));
+            }
+        }
+        GameEngine engine = game.getEngine();
+        engine.start();
+        int tileCount = grid.getFallingTetromino().getActiveTiles().length;
+        engine.hardDrop();
+
+        if (game.getStats().getClearCount() != 1) {
+            return "row wasn't cleared when the piece locked";
+        }
+        if (grid.getFilledCount() != tileCount - landedCount) {
+            return grid.getFilledCount() + " tiles left after the clear, instead of " + (tileCount - landedCount);
+        }
+        grid.publish();
+        if (grid.getSnapshot().getClearRows().length != 1) {
+            return "clear isn't drawn vanishing";
+        }
+        engine.step(Speeds.SPAWN_WAIT);
+        if (grid.getFallingTetromino() == null || game.isOver()) {
+            return "next piece didn't spawn";
+        }
+        if (grid.getFilledCount() != tileCount - landedCount) {
+            return "cleared row came back after the next spawn";
+        }
+        return null;
+    }
+
+    /**
+     * @param seed - seed of the piece order
+     * @return which cols of the bottom row the first piece of a game lands
+     * in, when hard dropped onto an empty grid
+     */
+    private static boolean[] findLanding(long seed) {
+        Game game = createGame(seed);
+        game.getEngine().start();
+        Tetromino falling = game.getGrid().getFallingTetromino();
+        falling.drop();
+        boolean[] landed = new boolean[Grid.DEFAULT_COL_COUNT];
+        for (Tile t : falling.getActiveTiles()) {
+            if (t.getRow() == Grid.DEFAULT_ROW_COUNT - 1) {
+                landed[t.getCol()] = true;
+            }
+        }
+        return landed;
+    }
+
+    private static Game createGame(long seed) {
+        return new Game(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT, 0, PieceSet.STANDARD,
+                        new HistoryGenerator(PieceSet.STANDARD.getCount(), seed));
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,89 @@
+package shapes;
+
+import shapes.Tetrominoes.Piece;
+import shapes.Tetrominoes.PieceSet;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Headless check that moving, rotating and fit checking the falling piece
+ * creates no objects. Every standard piece is moved around a board with
+ * random holes in it, 100k rounds each, while the bytes allocated by this
+ * thread are counted. Run it from the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out shapes.AllocationTest
+ *
+ * It exits with a non-zero status if any piece allocates.
+ */
+public class AllocationTest {
+    private static final int ROUND_COUNT = 100000;
+    private static final long MAX_BYTES = 1024;    // the counter itself can allocate a little, once
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        if (!mx.isThreadAllocatedMemorySupported()) {
+            fail("Thread allocation counting isn't supported by this JVM");
+        }
+        mx.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        Grid grid = new Grid(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT);
+        Random random = new Random(1);
+        for (int row = Grid.DEFAULT_ROW_COUNT - 6; row < Grid.DEFAULT_ROW_COUNT; row++) {
+            for (int col = 0; col < Grid.DEFAULT_COL_COUNT; col++) {
+                if (random.nextInt(3) == 0) {
+                    grid.get(col, row).setPartialShapeTile(new Tile(Color.GRAY, false));
+                }
+            }
+        }
+
+        int failures = 0;
+        PieceSet set = PieceSet.STANDARD;
+        for (int type = 1; type <= set.getCount(); type++) {
+            Piece piece = new Piece(grid, set, type);
+            grid.setFallingTetromino(piece);
+            piece.moveDown();
+            play(piece, ROUND_COUNT);   // warm up, so that nothing is left to load or compile lazily
+
+            long before = mx.getThreadAllocatedBytes(threadId);
+            play(piece, ROUND_COUNT);
+            long allocated = mx.getThreadAllocatedBytes(threadId) - before;
+            if (allocated > MAX_BYTES) {
+                System.out.println("FAIL " + set.getPieceName(type) + ": " + allocated + " bytes allocated");
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            fail(failures + " pieces allocate while moving");
+        }
+        System.out.println("OK " + set.getCount() + " pieces, " + ROUND_COUNT + " rounds each");
+    }
+
+    /**
+     * Moves a piece around without letting it fall, so that it always
+     * stays in the same few rows.
+     * @param piece - piece to move
+     * @param rounds - number of rounds of moves
+     */
+    private static void play(Piece piece, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            piece.moveLeft();
+            piece.moveRight();
+            piece.rotate();
+            piece.checkFitDown();
+            if (i % 2 == 0) {
+                piece.moveUp();
+            } else {
+                piece.moveDown();
+            }
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        System.exit(1);
+    }
+}
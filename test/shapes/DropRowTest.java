@@ -0,0 +1,101 @@
+package shapes;
+
+import shapes.Tetrominoes.PieceSet;
+import shapes.Tetrominoes.Tetromino;
+import shapes.Tetrominoes.TileMap;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Headless check that Grid.getDropRow() always agrees with walking a shape
+ * down one row at a time, for every shape of every piece set, on random
+ * boards, including shapes that start partly above the grid. Run it from
+ * the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out shapes.DropRowTest
+ *
+ * It exits with a non-zero status if any drop row is wrong.
+ */
+public class DropRowTest {
+    private static final int BOARD_COUNT = 200;
+
+    public static void main(String[] args) throws IOException {
+        List<PieceSet> sets = new ArrayList<>();
+        sets.add(PieceSet.STANDARD);
+        File[] files = new File("res/pieces").listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files != null) {
+            for (File file : files) {
+                sets.add(PieceSet.load(file));
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(1);
+        int checks = 0;
+        for (int board = 0; board < BOARD_COUNT; board++) {
+            Grid grid = createBoard(random);
+            for (PieceSet set : sets) {
+                for (int type = 1; type <= set.getCount(); type++) {
+                    for (int orientation = 0; orientation <= Tetromino.ORIENTATION_WEST; orientation++) {
+                        TileMap tileMap = set.getTileMap(type, orientation);
+                        for (int col = 0; col < grid.getColCount(); col++) {
+                            for (int row = -3; row < grid.getRowCount(); row++) {
+                                checkDropRow(grid, tileMap, col, row);
+                                checks++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        System.out.println("OK " + checks + " drop rows");
+    }
+
+    /**
+     * @param random - random source
+     * @return a default sized grid, with a random stack of filled tiles
+     */
+    private static Grid createBoard(SplittableRandom random) {
+        Grid grid = new Grid(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT);
+        grid.setClearAnimated(false);
+        for (int col = 0; col < grid.getColCount(); col++) {
+            int height = random.nextInt(grid.getRowCount() / 2);
+            for (int row = grid.getRowCount() - height; row < grid.getRowCount(); row++) {
+                if (random.nextInt(4) != 0) {   // leave holes for shapes to tuck under
+                    grid.get(col, row).setPartialShapeTile(new Tile(Color.GRAY, false));
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Compares the drop row against a row by row walk, but only for shapes
+     * that could actually be there, which is either fitting in the grid,
+     * or stuck above it.
+     * @param grid - grid to drop in
+     * @param tileMap - shape to drop
+     * @param col - col of the pivot tile
+     * @param row - row of the pivot tile
+     */
+    private static void checkDropRow(Grid grid, TileMap tileMap, int col, int row) {
+        boolean isAbove = row + tileMap.getMaskRow() < 0;
+        if (!isAbove && !grid.checkFit(tileMap, col, row)) {
+            return;
+        }
+        int expected = row;
+        while (grid.checkFit(tileMap, col, expected + 1)) {
+            expected++;
+        }
+        int actual = grid.getDropRow(tileMap, col, row);
+        if (actual != expected) {
+            System.out.println("FAIL drop row " + actual + " instead of " + expected + " at (" + col + ", " + row + ")");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package shapes;
+
+import shapes.Tetrominoes.Piece;
+import shapes.Tetrominoes.PieceSet;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Headless check that clearing a grid, as at the end of a game, leaves it
+ * exactly like a new one: no filled cells, every counter and the hash back
+ * at zero, and nothing left over to draw from the last hard drop or clear.
+ * Run it from the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out shapes.GridClearTest
+ *
+ * It exits with a non-zero status if anything is left over.
+ */
+public class GridClearTest {
+    private static final int BOARD_COUNT = 100;
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        for (int i = 0; i < BOARD_COUNT; i++) {
+            String error = checkClear(random);
+            if (error != null) {
+                fail("board " + i + ": " + error);
+            }
+        }
+        System.out.println("OK " + BOARD_COUNT + " boards");
+    }
+
+    /**
+     * Fills a grid at random, hard drops a piece into it, then clears it.
+     * @param random - source of the random boards
+     * @return what was left over after the clear, or null if nothing was
+     */
+    private static String checkClear(Random random) {
+        Grid grid = new Grid(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT);
+        for (int row = Grid.DEFAULT_ROW_COUNT / 2; row < Grid.DEFAULT_ROW_COUNT; row++) {
+            for (int col = 0; col < Grid.DEFAULT_COL_COUNT; col++) {
+                if (random.nextInt(4) != 0) {
+                    grid.get(col, row).setPartialShapeTile(new Tile(Color.GRAY, false));
+                }
+            }
+        }
+        Piece piece = new Piece(grid, PieceSet.STANDARD, 1 + random.nextInt(PieceSet.STANDARD.getCount()));
+        grid.setFallingTetromino(piece);
+        grid.slideFalling(piece.drop());
+        grid.dropFalling();
+        grid.publish();
+
+        grid.clear();
+        grid.publish();
+        if (grid.getFilledCount() != 0) {
+            return grid.getFilledCount() + " tiles still filled";
+        }
+        for (int row = 0; row < grid.getRowCount(); row++) {
+            if (grid.getRowFillCount(row) != 0) {
+                return "row " + row + " still counts " + grid.getRowFillCount(row) + " tiles";
+            }
+        }
+        for (int col = 0; col < grid.getColCount(); col++) {
+            if (grid.getColumnHeight(col) != 0) {
+                return "col " + col + " still has a height of " + grid.getColumnHeight(col);
+            }
+            for (int row = 0; row < grid.getRowCount(); row++) {
+                if (!grid.isFree(col, row)) {
+                    return "cell (" + col + ", " + row + ") is still filled on the board";
+                }
+            }
+        }
+        if (grid.getBoardHash() != 0) {
+            return "board hash isn't 0";
+        }
+        GridSnapshot s = grid.getSnapshot();
+        if (s.getSlideCells().length != 0 || s.getClearRows().length != 0) {
+            return "last hard drop or clear is still drawn";
+        }
+        return null;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        System.exit(1);
+    }
+}
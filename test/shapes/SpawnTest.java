@@ -0,0 +1,78 @@
+package shapes;
+
+import shapes.Tetrominoes.Piece;
+import shapes.Tetrominoes.PieceSet;
+import shapes.Tetrominoes.TileMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless check that every piece, of the standard set and of every set in
+ * res/pieces, can move down from where it spawns on an empty grid, and that
+ * its topmost tile is then on row 0. Run it from the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out shapes.SpawnTest
+ *
+ * It exits with a non-zero status if any piece fails.
+ */
+public class SpawnTest {
+
+    public static void main(String[] args) throws IOException {
+        List<PieceSet> sets = new ArrayList<>();
+        sets.add(PieceSet.STANDARD);
+        File[] files = new File("res/pieces").listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null || files.length == 0) {
+            fail("No piece sets found in res/pieces, run this from the project root");
+        }
+        for (File file : files) {
+            sets.add(PieceSet.load(file));
+        }
+
+        int failures = 0;
+        for (PieceSet set : sets) {
+            for (int type = 1; type <= set.getCount(); type++) {
+                String error = checkSpawn(set, type);
+                if (error != null) {
+                    System.out.println("FAIL " + set.getName() + " " + set.getPieceName(type) + ": " + error);
+                    failures++;
+                }
+            }
+        }
+        if (failures > 0) {
+            fail(failures + " pieces can't spawn");
+        }
+        System.out.println("OK " + sets.size() + " piece sets");
+    }
+
+    /**
+     * @param set - piece set of the piece
+     * @param type - type of the piece
+     * @return why the piece can't spawn, or null if it can
+     */
+    private static String checkSpawn(PieceSet set, int type) {
+        Grid grid = new Grid(Grid.DEFAULT_COL_COUNT, Grid.DEFAULT_ROW_COUNT);
+        Piece piece = new Piece(grid, set, type);
+        grid.setFallingTetromino(piece);
+        if (grid.checkGameOver()) {
+            return "game over on spawn";
+        }
+        if (!piece.moveDown()) {
+            return "can't move down from spawn";
+        }
+        TileMap tileMap = piece.getTileMap();
+        int topRow = piece.getPivotTile().getRow() + tileMap.getMaskRow();
+        if (topRow != 0) {
+            return "topmost tile is on row " + topRow + " after the first move down";
+        }
+        return null;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAIL " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,55 @@
+package utils;
+
+import shapes.Tile;
+
+/**
+ * Headless check of the tile map rules that MapValidator enforces. Run it
+ * from the project root:
+ *
+ *   javac -d out $(find src test -name "*.java")
+ *   java -cp out utils.MapValidatorTest
+ *
+ * It exits with a non-zero status if any check fails.
+ */
+public class MapValidatorTest {
+    private static final int E = Tile.EMPTY;
+    private static final int X = Tile.REGULAR;
+    private static final int P = Tile.PIVOT;
+
+    public static void main(String[] args) {
+        check("connected pentomino", true, new int[][] {
+                { E, X, E },
+                { X, P, X },
+                { E, X, E },
+        }, 5);
+        check("gap between columns", false, new int[][] {
+                { X, E, E },
+                { E, E, E },
+                { X, P, X },
+        }, 4);
+        check("corner only contact", false, new int[][] {
+                { X, E, E },
+                { E, P, X },
+                { E, X, E },
+        }, 4);
+        check("two pivots", false, new int[][] {
+                { P, X, E },
+                { E, P, X },
+                { E, E, E },
+        }, 4);
+        System.out.println("OK");
+    }
+
+    /**
+     * @param name - name of the check
+     * @param expected - should the array be valid?
+     * @param arr - tile map array to validate
+     * @param cellCount - number of tiles in the piece
+     */
+    private static void check(String name, boolean expected, int[][] arr, int cellCount) {
+        if (MapValidator.validate(arr, cellCount) != expected) {
+            System.out.println("FAIL " + name + ": expected " + (expected ? "valid" : "invalid"));
+            System.exit(1);
+        }
+    }
+}